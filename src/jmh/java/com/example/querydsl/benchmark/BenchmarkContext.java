@@ -0,0 +1,49 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.QuerydslApplication;
+import com.example.querydsl.seed.MemberDataGenerator;
+import com.example.querydsl.seed.MemberSeedProperties;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/*
+벤치마크용 스프링 컨텍스트. in-memory H2 에 JPA 계층만 띄우고 (웹 서버 x) 지정된 크기로 데이터를 채운다
+ */
+public final class BenchmarkContext {
+
+  public static final int TEAM_COUNT = 100;
+
+  private BenchmarkContext() {
+  }
+
+  public static ConfigurableApplicationContext start(String... extraArgs) {
+    List<String> args = new ArrayList<>(List.of(
+        "--spring.profiles.active=bench",
+        "--spring.datasource.hikari.jdbc-url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+        "--spring.jpa.hibernate.ddl-auto=create",
+        "--logging.level.org.hibernate.SQL=warn",
+        "--member.count-cache.enabled=false",
+        "--member.search-cache.enabled=false"
+    ));
+    args.addAll(List.of(extraArgs));
+    return new SpringApplicationBuilder(QuerydslApplication.class)
+        .web(WebApplicationType.NONE)
+        .run(args.toArray(new String[0]));
+  }
+
+  /*
+  team0 ~ team99 에 회원 분배. teamSkew/ageSkew 가 0 이면 균등분포
+   */
+  public static void seed(ConfigurableApplicationContext context, long members, double teamSkew,
+      double ageSkew) {
+    MemberSeedProperties properties = new MemberSeedProperties();
+    properties.setTeams(TEAM_COUNT);
+    properties.setMembers(members);
+    properties.setTeamSkew(teamSkew);
+    properties.setAgeSkew(ageSkew);
+    context.getBean(MemberDataGenerator.class).generate(properties);
+  }
+}
@@ -0,0 +1,87 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.MemberJpaRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+rows/sec (ops = insert 한 회원 수)
+oneByOne: row 마다 flush => 예전 IDENTITY 전략과 같은 row 당 1 round trip
+saveAll: sequence pooled + jdbc batch + flush/clear
+매 invocation 은 rollback 해서 테이블 크기를 일정하게 유지
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemberInsertBenchmark {
+
+  private static final int ROWS = 1_000;
+
+  private ConfigurableApplicationContext context;
+  private MemberJpaRepository memberJpaRepository;
+  private TransactionTemplate transactionTemplate;
+  private EntityManager em;
+  private Team team;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkContext.start();
+    memberJpaRepository = context.getBean(MemberJpaRepository.class);
+    transactionTemplate = new TransactionTemplate(
+        context.getBean(PlatformTransactionManager.class));
+    em = context.getBean(EntityManager.class);
+    team = transactionTemplate.execute(status -> {
+      Team saved = new Team("team0");
+      em.persist(saved);
+      return saved;
+    });
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void oneByOne() {
+    transactionTemplate.execute(status -> {
+      for (int i = 0; i < ROWS; i++) {
+        memberJpaRepository.save(new Member("member" + i, i % 100, team));
+        em.flush();
+      }
+      status.setRollbackOnly();
+      return null;
+    });
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void saveAll() {
+    transactionTemplate.execute(status -> {
+      List<Member> members = new ArrayList<>(ROWS);
+      for (int i = 0; i < ROWS; i++) {
+        members.add(new Member("member" + i, i % 100, team));
+      }
+      memberJpaRepository.saveAll(members);
+      status.setRollbackOnly();
+      return null;
+    });
+  }
+}
@@ -0,0 +1,57 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.repository.MemberJpaRepository;
+import com.example.querydsl.repository.ReadMode;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+엔티티 대량 조회: MANAGED vs READ_ONLY hint vs StatelessSession
+서비스 계층의 (readOnly 아닌) 트랜잭션 안에서 조회 후 커밋(flush)까지 포함해서 잰다
+heap 차이는 -prof gc 의 gc.alloc.rate.norm 으로 비교
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberReadModeBenchmark {
+
+  @Param({"100000"})
+  private int members;
+
+  @Param({"MANAGED", "READ_ONLY", "STATELESS"})
+  private ReadMode readMode;
+
+  private ConfigurableApplicationContext context;
+  private MemberJpaRepository memberJpaRepository;
+  private TransactionTemplate transactionTemplate;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkContext.start("--spring.jpa.properties.hibernate.cache.use_second_level_cache=false");
+    BenchmarkContext.seed(context, members, 0.0, 0.0);
+    memberJpaRepository = context.getBean(MemberJpaRepository.class);
+    transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public int findAll() {
+    return transactionTemplate.execute(
+        status -> memberJpaRepository.findAll_Querydsl(readMode).size());
+  }
+}
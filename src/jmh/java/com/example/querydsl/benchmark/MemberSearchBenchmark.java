@@ -0,0 +1,104 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.MemberRepository;
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberTeamDto;
+import com.example.querydsl.repository.MemberJpaRepository;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/*
+BooleanBuilder vs where 파라미터(템플릿 없이 매번 쿼리 생성), JPQL 템플릿 재사용, fetchResults vs 분리된 count, JPQL vs querydsl 비교
+allocation rate 는 -prof gc (build.gradle 에서 기본 적용)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemberSearchBenchmark {
+
+  @Param({"10000"})
+  private int members;
+
+  @Param({"0.0"})
+  private double teamSkew;
+
+  private ConfigurableApplicationContext context;
+  private MemberJpaRepository memberJpaRepository;
+  private MemberRepository memberRepository;
+
+  private MemberSearchCondition condition;
+  private Pageable pageable;
+  private String username;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkContext.start();
+    BenchmarkContext.seed(context, members, teamSkew, 0.0);
+    memberJpaRepository = context.getBean(MemberJpaRepository.class);
+    memberRepository = context.getBean(MemberRepository.class);
+
+    condition = new MemberSearchCondition();
+    condition.setTeamName("team1");
+    condition.setAgeGoe(20);
+    condition.setAgeLoe(40);
+    pageable = PageRequest.of(2, 20);
+    username = "member" + (members / 2);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> searchByBuilder() {
+    return memberJpaRepository.searchByBuilderUntemplated(condition);
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> searchWhereParams() {
+    return memberJpaRepository.searchUntemplated(condition);
+  }
+
+  /*
+  shape 별 JPQL 템플릿 재사용 => searchWhereParams 와 비교 (searchByBuilder 도 템플릿을 쓰면 같은 JPQL 이라 하나만 잰다)
+   */
+  @Benchmark
+  public List<MemberTeamDto> searchWhereParamsTemplated() {
+    return memberJpaRepository.search(condition);
+  }
+
+  @Benchmark
+  public Page<MemberTeamDto> searchPageSimple() {
+    return memberRepository.searchPageSimple(condition, pageable);
+  }
+
+  @Benchmark
+  public Page<MemberTeamDto> searchPageComplex() {
+    return memberRepository.searchPageComplex(condition, pageable);
+  }
+
+  @Benchmark
+  public List<Member> findByUsernameJpql() {
+    return memberJpaRepository.findByUsername(username);
+  }
+
+  @Benchmark
+  public List<Member> findByUsernameQuerydsl() {
+    return memberJpaRepository.findByUsername_Querydsl(username);
+  }
+}
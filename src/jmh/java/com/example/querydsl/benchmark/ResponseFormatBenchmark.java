@@ -0,0 +1,77 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.config.BinaryFormatConfig;
+import com.example.querydsl.entity.MemberTeamDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/*
+/v3/members 응답 직렬화: JSON(PageImpl) vs Smile / CBOR(slim page)
+DB 없이 직렬화 CPU 만 잰다. 응답 크기는 결과표의 serialize:bytes 보조 지표 (마지막 직렬화 크기, 스레드 1개 기준)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseFormatBenchmark {
+
+  public enum Format {
+    JSON, SMILE, CBOR
+  }
+
+  @Param({"20", "1000"})
+  private int rows;
+
+  @Param({"JSON", "SMILE", "CBOR"})
+  private Format format;
+
+  private ObjectMapper objectMapper;
+  private Page<MemberTeamDto> page;
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class WireSize {
+
+    public long bytes;
+  }
+
+  @Setup
+  public void setUp() {
+    Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+    objectMapper = format == Format.SMILE ? BinaryFormatConfig.smileObjectMapper(builder)
+        : format == Format.CBOR ? BinaryFormatConfig.cborObjectMapper(builder)
+            : builder.build();
+
+    List<MemberTeamDto> content = new ArrayList<>(rows);
+    for (int i = 0; i < rows; i++) {
+      long teamId = i % 10;
+      content.add(new MemberTeamDto((long) i, "member" + i, i % 100, teamId, "team" + teamId));
+    }
+    page = new PageImpl<>(content, PageRequest.of(0, rows), rows * 50L);
+  }
+
+  @Benchmark
+  public int serialize(WireSize wireSize) throws IOException {
+    out.reset();
+    objectMapper.writeValue(out, page);
+    wireSize.bytes = out.size();
+    return out.size();
+  }
+}
@@ -0,0 +1,75 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.entity.MemberRepository;
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberTeamDto;
+import com.example.querydsl.repository.MemberJpaRepository;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+/*
+slow query log on/off 로 검색 처리량 비교. 목표는 차이 1% 미만
+./gradlew jmhJar 후 java -jar build/libs/*-jmh.jar SlowQueryLogBenchmark => sqlLog=true 처리량을 false 대비 비율로 본다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SlowQueryLogBenchmark {
+
+  @Param({"false", "true"})
+  private boolean sqlLog;
+
+  @Param({"0.001"})
+  private double sampleRate;
+
+  private ConfigurableApplicationContext context;
+  private MemberJpaRepository memberJpaRepository;
+  private MemberRepository memberRepository;
+
+  private MemberSearchCondition condition;
+  private Pageable pageable;
+
+  @Setup
+  public void setUp() {
+    context = BenchmarkContext.start(
+        "--member.sql-log.enabled=" + sqlLog,
+        "--member.sql-log.sample-rate=" + sampleRate);
+    BenchmarkContext.seed(context, 10000, 0.0, 0.0);
+    memberJpaRepository = context.getBean(MemberJpaRepository.class);
+    memberRepository = context.getBean(MemberRepository.class);
+
+    condition = new MemberSearchCondition();
+    condition.setTeamName("team1");
+    condition.setAgeGoe(20);
+    condition.setAgeLoe(40);
+    pageable = PageRequest.of(2, 20);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public List<MemberTeamDto> search() {
+    return memberJpaRepository.search(condition);
+  }
+
+  @Benchmark
+  public Page<MemberTeamDto> searchPageComplex() {
+    return memberRepository.searchPageComplex(condition, pageable);
+  }
+}
@@ -1,44 +1,25 @@
 package com.example.querydsl;
 
-import com.example.querydsl.entity.Member;
-import com.example.querydsl.entity.Team;
+import com.example.querydsl.seed.MemberDataGenerator;
+import com.example.querydsl.seed.MemberSeedProperties;
 import javax.annotation.PostConstruct;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
-import javax.persistence.PersistenceUnit;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+/*
+데이터 규모/분포는 member.seed.* 로 조정 (기본값은 팀 2개, 회원 100명)
+ */
 @Profile("local")
 @Component
 @RequiredArgsConstructor
 public class InitMember {
 
-  private final InitMemberService initMemberService;
+  private final MemberDataGenerator memberDataGenerator;
+  private final MemberSeedProperties memberSeedProperties;
 
   @PostConstruct
   public void init() {
-    initMemberService.init();  //PostConstruct와 Transactional 이 빈 라이프사이클 문제로 동시에 적용 불가능해서 따로 뗴어놓음
-  }
-
-  @Component
-  static class InitMemberService {
-    @PersistenceContext
-    private EntityManager em;
-
-    @Transactional
-    public void init() {
-      Team teamA = new Team("teamA");
-      Team teamB = new Team("teamB");
-      em.persist(teamA);
-      em.persist(teamB);
-
-      for (int i = 0; i < 100; i++) {
-        Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-        em.persist(new Member("member"+i, i, selectedTeam));
-      }
-    }
+    memberDataGenerator.generate(memberSeedProperties);  //chunk 별로 TransactionTemplate 을 쓰므로 PostConstruct 에서 바로 호출 가능
   }
 }
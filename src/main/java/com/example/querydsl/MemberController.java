@@ -1,35 +1,85 @@
 package com.example.querydsl;
 
+import static org.springframework.util.StringUtils.hasText;
+
+import com.example.querydsl.cache.MemberSearchETag;
+import com.example.querydsl.entity.MemberCursor;
+import com.example.querydsl.entity.MemberCursor.SortKey;
+import com.example.querydsl.entity.MemberCursorPage;
 import com.example.querydsl.entity.MemberRepository;
 import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberTeamColumns;
 import com.example.querydsl.entity.MemberTeamDto;
 import com.example.querydsl.repository.MemberJpaRepository;
+import com.example.querydsl.snapshot.MemberSnapshotStore;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 @RequiredArgsConstructor
 @RestController
 public class MemberController {
 
+  private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+  private static final int COLUMNS_FETCH_SIZE = 1000;
+
   private final MemberJpaRepository memberJpaRepository;
   private final MemberRepository memberRepository;
+  private final MemberSnapshotStore memberSnapshotStore;
+  private final MemberSearchETag memberSearchETag;
 
   @GetMapping("/v1/members")
   public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-    return memberJpaRepository.searchByBuilder(condition);
+    List<MemberTeamDto> snapshot = memberSnapshotStore.search(condition);  //켜져 있고 최신이면 DB 를 안 간다
+    return snapshot != null ? snapshot : memberJpaRepository.searchByBuilder(condition);
+  }
+
+  /*
+  리포트용 대량 조회. 응답 JSON 은 /v1 과 같고 서버 heap 은 컬럼형으로만 잡는다
+   */
+  @GetMapping("/v1/members/columns")
+  public MemberTeamColumns searchMemberColumns(MemberSearchCondition condition) {
+    return memberJpaRepository.searchColumns(condition, COLUMNS_FETCH_SIZE);
   }
 
+  /*
+  v2, v3 는 같은 조건으로 주기적으로 polling 하는 대시보드가 많아서 ETag 로 변경이 없으면 304
+  ETag 는 primary 의 테이블 버전이라 본문을 replica 에서 읽은 응답에는 붙이지 않는다 (MemberSearchETag)
+   */
   @GetMapping("/v2/members")
-  public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-    return memberRepository.searchPageSimple(condition, pageable);
+  public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable,
+      WebRequest request) {
+    return memberSearchETag.conditional(request, condition, pageable,
+        () -> memberRepository.searchPageSimple(condition, pageable));
   }
 
   @GetMapping("/v3/members")
-  public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-    return memberRepository.searchPageComplex(condition, pageable);
+  public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+      WebRequest request) {
+    return memberSearchETag.conditional(request, condition, pageable,
+        () -> memberRepository.searchPageComplex(condition, pageable));
+  }
+
+  @GetMapping("/v4/members")
+  public MemberCursorPage searchMemberV4(MemberSearchCondition condition,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "ID") SortKey sort,
+      @RequestParam(defaultValue = "20") int size) {
+    MemberCursor memberCursor = hasText(cursor)
+        ? MemberCursor.decode(cursor)
+        : MemberCursor.first(sort);
+    int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+    return memberRepository.searchByCursor(condition, memberCursor, pageSize);
+  }
+
+  @GetMapping("/v5/members")
+  public Slice<MemberTeamDto> searchMemberV5(MemberSearchCondition condition, Pageable pageable) {
+    return memberRepository.searchSlice(condition, pageable);
   }
 }
@@ -0,0 +1,28 @@
+package com.example.querydsl;
+
+import com.example.querydsl.entity.MemberSearchCondition;
+import java.io.IOException;
+import javax.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RequiredArgsConstructor
+@RestController
+public class MemberExportController {
+
+  private final MemberExportService memberExportService;
+
+  @GetMapping("/members/export")
+  public void exportMembers(MemberSearchCondition condition,
+      @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+      HttpServletResponse response) throws IOException {
+    response.setContentType(format.getContentType());
+    response.setCharacterEncoding("UTF-8");
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+        "attachment; filename=members." + format.getExtension());
+    memberExportService.export(condition, format, response.getOutputStream());
+  }
+}
@@ -0,0 +1,23 @@
+package com.example.querydsl;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("member.export")
+public class MemberExportProperties {
+
+  private int fetchSize = 500;
+  private int clearInterval = 1000;
+
+  public void setClearInterval(int clearInterval) {
+    if (clearInterval <= 0) {
+      throw new IllegalArgumentException("clearInterval must be positive: " + clearInterval);
+    }
+    this.clearInterval = clearInterval;
+  }
+}
@@ -0,0 +1,100 @@
+package com.example.querydsl;
+
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberTeamDto;
+import com.example.querydsl.repository.MemberJpaRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+회원 전체 export. row 를 메모리에 모으지 않고 DB 커서에서 읽는 즉시 response 로 쓴다 => 건수와 상관없이 heap 사용량 일정
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+  private static final String CSV_HEADER = "memberId,username,age,teamId,teamName";
+
+  private final MemberJpaRepository memberJpaRepository;
+  private final MemberExportProperties properties;
+  private final ObjectMapper objectMapper;
+
+  @Transactional(readOnly = true)
+  public long export(MemberSearchCondition condition, ExportFormat format, OutputStream out)
+      throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    long count = format == ExportFormat.CSV
+        ? writeCsv(condition, writer)
+        : writeNdjson(condition, writer);
+    writer.flush();
+    return count;
+  }
+
+  private long writeNdjson(MemberSearchCondition condition, Writer writer) throws IOException {
+    SequenceWriter rows = objectMapper.writer()
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+        .withRootValueSeparator("\n")
+        .writeValues(writer);
+    long count = stream(condition, dto -> rows.write(dto));
+    rows.flush();
+    if (count > 0) {  //row 가 없으면 빈 body (빈 줄 하나도 NDJSON 으로는 잘못된 row)
+      writer.write('\n');
+    }
+    return count;
+  }
+
+  private long writeCsv(MemberSearchCondition condition, Writer writer) throws IOException {
+    writer.write(CSV_HEADER);
+    writer.write('\n');
+    return stream(condition, dto -> {
+      writer.write(String.valueOf(dto.getMemberId()));
+      writer.write(',');
+      writer.write(csv(dto.getUsername()));
+      writer.write(',');
+      writer.write(Integer.toString(dto.getAge()));
+      writer.write(',');
+      writer.write(dto.getTeamId() == null ? "" : String.valueOf(dto.getTeamId()));
+      writer.write(',');
+      writer.write(csv(dto.getTeamName()));
+      writer.write('\n');
+    });
+  }
+
+  private long stream(MemberSearchCondition condition, RowWriter rowWriter) {
+    return memberJpaRepository.streamSearch(condition, properties.getFetchSize(),
+        properties.getClearInterval(), dto -> {
+          try {
+            rowWriter.write(dto);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+  }
+
+  private static String csv(String value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+      return value;
+    }
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+
+  @FunctionalInterface
+  private interface RowWriter {
+
+    void write(MemberTeamDto dto) throws IOException;
+  }
+}
@@ -0,0 +1,20 @@
+package com.example.querydsl;
+
+import com.example.querydsl.entity.TeamStatsDto;
+import com.example.querydsl.stats.TeamStatsRepository;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RequiredArgsConstructor
+@RestController
+public class TeamStatsController {
+
+  private final TeamStatsRepository teamStatsRepository;
+
+  @GetMapping("/teams/stats")
+  public List<TeamStatsDto> teamStats() {
+    return teamStatsRepository.findAll();
+  }
+}
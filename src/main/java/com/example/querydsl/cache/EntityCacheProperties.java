@@ -0,0 +1,46 @@
+package com.example.querydsl.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/*
+hibernate 2차 캐시 region 별 크기/TTL. regions 에 없는 값은 기본값(maximumSize, expireAfterWrite)을 따른다
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("member.entity-cache")
+public class EntityCacheProperties {
+
+  public static final String TEAM = "team";
+  public static final String MEMBER = "member";
+  public static final String TEAM_MEMBERS = "team.members";
+
+  private long maximumSize = 10_000;
+  private Duration expireAfterWrite = Duration.ofMinutes(10);
+  private Map<String, Region> regions = new LinkedHashMap<>();
+
+  public long maximumSize(String region) {
+    Region spec = regions.get(region);
+    return spec != null && spec.getMaximumSize() != null ? spec.getMaximumSize() : maximumSize;
+  }
+
+  public Duration expireAfterWrite(String region) {
+    Region spec = regions.get(region);
+    return spec != null && spec.getExpireAfterWrite() != null ? spec.getExpireAfterWrite()
+        : expireAfterWrite;
+  }
+
+  @Getter
+  @Setter
+  public static class Region {
+
+    private Long maximumSize;
+    private Duration expireAfterWrite;
+  }
+}
@@ -0,0 +1,101 @@
+package com.example.querydsl.cache;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.event.spi.PreDeleteEvent;
+import org.hibernate.event.spi.PreDeleteEventListener;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/*
+member(, team) 테이블을 바꾸는 SQL 중 엔티티 이벤트 밖에서 나오는 것(querydsl update/delete 같은 벌크연산, native 쿼리)을 잡는다.
+Pre ~ Post 이벤트 사이에 hibernate 가 준비하는 SQL 은 엔티티 단위 변경이라 제외.
+엔티티 이벤트로 파생 데이터를 유지하는 쪽(팀 통계, username n-gram, 스냅샷)은 addListener 로 구독해서 stale 처리
+ */
+@Component
+public class MemberBulkWriteDetector implements StatementInspector,
+    PreInsertEventListener, PreUpdateEventListener, PreDeleteEventListener,
+    PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+  private final ThreadLocal<Boolean> entityWrite = ThreadLocal.withInitial(() -> false);
+  private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+  public void addListener(Consumer<String> listener) {
+    addListener(TableChangeTracker.MEMBER, listener);
+  }
+
+  public void addListener(String table, Consumer<String> listener) {
+    listeners.computeIfAbsent(table, t -> new CopyOnWriteArrayList<>()).add(listener);
+  }
+
+  @Override
+  public String inspect(String sql) {
+    String table = TableChangeTracker.writtenTable(sql);
+    if (TableChangeTracker.MEMBER.equals(table) || TableChangeTracker.TEAM.equals(table)) {
+      if (entityWrite.get()) {
+        entityWrite.set(false);  //statement 하나에만 유효 (예외로 Post 가 안 불려도 다음 벌크연산은 잡히도록)
+      } else {
+        listeners.getOrDefault(table, List.of()).forEach(listener -> listener.accept(sql));
+      }
+    }
+    return sql;
+  }
+
+  @Override
+  public boolean onPreInsert(PreInsertEvent event) {
+    return begin(event.getEntity());
+  }
+
+  @Override
+  public boolean onPreUpdate(PreUpdateEvent event) {
+    return begin(event.getEntity());
+  }
+
+  @Override
+  public boolean onPreDelete(PreDeleteEvent event) {
+    return begin(event.getEntity());
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    entityWrite.set(false);
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    entityWrite.set(false);
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    entityWrite.set(false);
+  }
+
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return false;
+  }
+
+  private boolean begin(Object entity) {
+    if (entity instanceof Member || entity instanceof Team) {
+      entityWrite.set(true);
+    }
+    return false;
+  }
+}
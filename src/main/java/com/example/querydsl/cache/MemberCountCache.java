@@ -0,0 +1,83 @@
+package com.example.querydsl.cache;
+
+import static com.example.querydsl.cache.TableChangeTracker.MEMBER;
+import static com.example.querydsl.cache.TableChangeTracker.TEAM;
+
+import com.example.querydsl.config.DataSourceRouting;
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/*
+정규화된 검색조건별 전체 count 캐시.
+member/team 테이블 버전이 계산 시점과 같을 때만 hit 으로 인정하므로 JPA 쓰기, 벌크연산 모두 자동으로 무효화된다.
+버전은 primary 기준이라 miss 때 count 를 replica 커넥션으로 읽은 트랜잭션이면
+(뒤쳐진 replica 의 값일 수 있으므로) 결과를 돌려주기만 하고 캐시에는 넣지 않는다
+ */
+@Component
+public class MemberCountCache {
+
+  private final TableChangeTracker tracker;
+  private final MemberCountCacheProperties properties;
+  private final Cache<MemberSearchCondition, CachedCount> cache;
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter bypasses;
+
+  public MemberCountCache(TableChangeTracker tracker, MemberCountCacheProperties properties,
+      MeterRegistry registry) {
+    this.tracker = tracker;
+    this.properties = properties;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(properties.getMaximumSize())
+        .expireAfterWrite(properties.getExpireAfterWrite().toNanos(), TimeUnit.NANOSECONDS)
+        .build();
+    this.hits = registry.counter("member.count.cache", "result", "hit");
+    this.misses = registry.counter("member.count.cache", "result", "miss");
+    this.bypasses = registry.counter("member.count.cache", "result", "bypass");
+    Gauge.builder("member.count.cache.size", cache, Cache::estimatedSize)
+        .register(registry);
+  }
+
+  public long count(EntityManager em, MemberSearchCondition condition, LongSupplier countQuery) {
+    if (!properties.isEnabled() || tracker.hasPendingChanges(em, MEMBER, TEAM)) {
+      bypasses.increment();
+      return countQuery.getAsLong();
+    }
+
+    MemberSearchCondition key = condition.normalize();
+    long version = tracker.version(MEMBER, TEAM);  //쿼리 실행 전에 버전을 읽어야 실행 중 들어온 변경이 stale 로 판정된다
+    CachedCount cached = cache.getIfPresent(key);
+    if (cached != null && cached.version == version) {
+      hits.increment();
+      return cached.count;
+    }
+
+    misses.increment();
+    long count = countQuery.getAsLong();
+    if (!DataSourceRouting.isReadingReplica()) {
+      cache.asMap().merge(key, new CachedCount(version, count),
+          (old, fresh) -> old.version > fresh.version ? old : fresh);
+    }
+    return count;
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  @RequiredArgsConstructor
+  private static class CachedCount {
+
+    private final long version;
+    private final long count;
+  }
+}
@@ -0,0 +1,151 @@
+package com.example.querydsl.cache;
+
+import static com.example.querydsl.cache.TableChangeTracker.MEMBER;
+import static com.example.querydsl.cache.TableChangeTracker.TEAM;
+
+import com.example.querydsl.config.DataSourceRouting;
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberTeamColumns;
+import com.example.querydsl.entity.MemberTeamDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/*
+(메서드, 정규화된 검색조건, pageable) 별 검색 결과 캐시. MemberCountCache 와 같은 방식으로
+member/team 테이블 버전이 조회 시점과 같을 때만 hit => 엔티티 쓰기, 벌크연산 모두 자동으로 무효화된다.
+- 결과는 MemberTeamColumns 로 담아서 DTO 보다 작게 들고 있고, hit 때마다 새 DTO 를 만들어 준다 (호출한 쪽이 DTO 를 고쳐도 캐시는 그대로)
+- 최대 크기는 row 수 기준 (Caffeine W-TinyLFU, entry 무게 = row 수 + 1), 혼자서 최대 크기를 넘는 결과는 담지 않는다
+- memory 게이지는 put / removal listener 에서 더하고 빼는 누적값 (scrape 때 entry 를 훑지 않음)
+- 버전은 primary 기준이라 replica 커넥션으로 읽은 결과는 돌려주기만 하고 넣지 않는다 (MemberCountCache 와 같이)
+ */
+@Component
+public class MemberSearchCache {
+
+  private final TableChangeTracker tracker;
+  private final MemberSearchCacheProperties properties;
+  private final Cache<Key, CachedResult> cache;
+  private final AtomicLong bytes = new AtomicLong();
+
+  public MemberSearchCache(TableChangeTracker tracker, MemberSearchCacheProperties properties,
+      MeterRegistry registry) {
+    this.tracker = tracker;
+    this.properties = properties;
+    this.cache = Caffeine.newBuilder()
+        .maximumWeight(properties.getMaximumRows())
+        .<Key, CachedResult>weigher((key, result) -> result.content.size() + 1)
+        .expireAfterWrite(properties.getExpireAfterWrite().toNanos(), TimeUnit.NANOSECONDS)
+        .<Key, CachedResult>removalListener((key, result, cause) -> bytes.addAndGet(-result.bytes))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(registry, cache, "member.search.cache");  //hit / miss / eviction / size
+    Gauge.builder("member.search.cache.rows", this, MemberSearchCache::rows)
+        .register(registry);
+    Gauge.builder("member.search.cache.memory", bytes, AtomicLong::get)
+        .baseUnit("bytes")
+        .register(registry);
+  }
+
+  public List<MemberTeamDto> list(EntityManager em, String method,
+      MemberSearchCondition condition, Supplier<List<MemberTeamDto>> query) {
+    if (!cacheable(em)) {
+      return query.get();
+    }
+    Key key = new Key(method, condition.normalize(), null);
+    long version = tracker.version(MEMBER, TEAM);  //쿼리 실행 전에 버전을 읽어야 실행 중 들어온 변경이 stale 로 판정된다
+    CachedResult cached = cache.getIfPresent(key);
+    if (cached != null && cached.version == version) {
+      return cached.content.toDtos();
+    }
+
+    List<MemberTeamDto> result = query.get();
+    put(key, version, result, -1);
+    return result;
+  }
+
+  public Page<MemberTeamDto> page(EntityManager em, String method,
+      MemberSearchCondition condition, Pageable pageable, Supplier<Page<MemberTeamDto>> query) {
+    if (!cacheable(em)) {
+      return query.get();
+    }
+    Key key = new Key(method, condition.normalize(), pageable);
+    long version = tracker.version(MEMBER, TEAM);
+    CachedResult cached = cache.getIfPresent(key);
+    if (cached != null && cached.version == version) {
+      return new PageImpl<>(cached.content.toDtos(), pageable, cached.total);
+    }
+
+    Page<MemberTeamDto> result = query.get();
+    put(key, version, result.getContent(), result.getTotalElements());
+    return result;
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private boolean cacheable(EntityManager em) {
+    return properties.isEnabled() && !tracker.hasPendingChanges(em, MEMBER, TEAM);
+  }
+
+  private void put(Key key, long version, List<MemberTeamDto> rows, long total) {
+    if (DataSourceRouting.isReadingReplica() || rows.size() + 1L > properties.getMaximumRows()) {
+      return;  //들어가자마자 evict 될 결과는 컬럼 변환도 하지 않는다
+    }
+    CachedResult result = new CachedResult(version, columns(rows), total);
+    CachedResult winner = cache.asMap()
+        .merge(key, result, (old, fresh) -> old.version > fresh.version ? old : fresh);
+    if (winner == result) {
+      bytes.addAndGet(result.bytes);  //밀려난 이전 값은 removal listener(REPLACED) 에서 빠진다
+    }
+  }
+
+  private static MemberTeamColumns columns(List<MemberTeamDto> rows) {
+    MemberTeamColumns.Builder builder = MemberTeamColumns.builder(rows.size());
+    rows.forEach(builder::add);
+    return builder.build();
+  }
+
+  private double rows() {
+    return cache.policy().eviction()
+        .map(eviction -> eviction.weightedSize().orElse(0))
+        .orElse(0L);
+  }
+
+  @EqualsAndHashCode
+  @RequiredArgsConstructor
+  private static class Key {
+
+    private final String method;
+    private final MemberSearchCondition condition;
+    private final Pageable pageable;
+  }
+
+  private static class CachedResult {
+
+    private final long version;
+    private final MemberTeamColumns content;
+    private final long total;
+    private final long bytes;
+
+    CachedResult(long version, MemberTeamColumns content, long total) {
+      this.version = version;
+      this.content = content;
+      this.total = total;
+      this.bytes = content.estimatedBytes();
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.example.querydsl.cache;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("member.search-cache")
+public class MemberSearchCacheProperties {
+
+  private boolean enabled = true;
+  private long maximumRows = 200_000;  //entry 무게 = row 수 + 1
+  private Duration expireAfterWrite = Duration.ofMinutes(1);
+}
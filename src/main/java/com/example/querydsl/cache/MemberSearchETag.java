@@ -0,0 +1,95 @@
+package com.example.querydsl.cache;
+
+import static com.example.querydsl.cache.TableChangeTracker.MEMBER;
+import static com.example.querydsl.cache.TableChangeTracker.TEAM;
+
+import com.example.querydsl.config.DataSourceRouting;
+import com.example.querydsl.entity.MemberSearchCondition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Supplier;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/*
+검색 조회용 ETag = hash(조건, pageable, Accept, member/team 테이블 버전)
+버전은 TableChangeTracker 가 엔티티 쓰기와 벌크연산 모두에서 올리므로, 같은 ETag 면 결과도 같다 => 304 로 DB 조회 생략
+- 버전은 프로세스 메모리에만 있어서 재시작하면 0 부터 다시 시작 => 프로세스별 epoch 를 섞어서 이전 ETag 가 맞지 않게 함
+- 이 프로세스를 거치지 않은 쓰기(다른 인스턴스, DB 직접 수정)는 모른다
+- 버전은 primary 기준 => 본문을 replica 에서 읽었으면 ETag 를 붙이지 않는다
+  (뒤쳐진 replica 의 결과가 새 ETag 로 나가면 다음 변경까지 304 로 굳는다)
+ */
+@Component
+public class MemberSearchETag {
+
+  private final TableChangeTracker tracker;
+  private final String epoch = UUID.randomUUID().toString();
+  private final Counter notModified;
+  private final Counter replicaSkipped;
+
+  public MemberSearchETag(TableChangeTracker tracker, MeterRegistry registry) {
+    this.tracker = tracker;
+    this.notModified = registry.counter("member.search.etag", "result", "notModified");
+    this.replicaSkipped = registry.counter("member.search.etag", "result", "replicaSkipped");
+  }
+
+  /*
+  If-None-Match 가 현재 ETag 와 같으면 304 를 설정하고 조회 없이 null.
+  아니면 query 결과를 돌려주고, primary 에서 읽었을 때만 ETag 헤더를 붙인다
+   */
+  public <T> T conditional(WebRequest request, MemberSearchCondition condition, Pageable pageable,
+      Supplier<T> query) {
+    vary(request);
+    String etag = etag(request, condition, pageable);  //버전은 조회 전에 읽어야 조회 중 들어온 변경이 다음 ETag 를 바꾼다
+    if (matches(request, etag)) {
+      checkNotModified(request, etag);
+      notModified.increment();
+      return null;
+    }
+
+    boolean[] replicaRead = new boolean[1];
+    T result = DataSourceRouting.watchReplicaReads(replicaRead, query);
+    if (replicaRead[0]) {
+      replicaSkipped.increment();
+    } else {
+      checkNotModified(request, etag);  //If-None-Match 는 이미 안 맞았으므로 ETag 헤더만 설정된다
+    }
+    return result;
+  }
+
+  private static boolean matches(WebRequest request, String etag) {
+    String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+    return ifNoneMatch != null && ifNoneMatch.contains(etag.substring(1, etag.length() - 1));
+  }
+
+  /*
+  ETag 에 Accept 가 들어가므로 공유 캐시/프록시가 JSON 요청에 Smile/CBOR 본문을 재검증해서 내주지 않도록
+   */
+  private static void vary(WebRequest request) {
+    HttpServletResponse response = request instanceof NativeWebRequest
+        ? ((NativeWebRequest) request).getNativeResponse(HttpServletResponse.class) : null;
+    if (response != null) {
+      response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+    }
+  }
+
+  private static boolean checkNotModified(WebRequest request, String etag) {
+    return request.checkNotModified(etag);
+  }
+
+  String etag(WebRequest request, MemberSearchCondition condition, Pageable pageable) {
+    String key = epoch
+        + '|' + tracker.version(MEMBER, TEAM)
+        + '|' + condition.normalize()
+        + '|' + pageable
+        + '|' + request.getHeader(HttpHeaders.ACCEPT);  //같은 조회라도 JSON / Smile 표현은 다르다
+    return '"' + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + '"';
+  }
+}
@@ -0,0 +1,117 @@
+package com.example.querydsl.cache;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+Hibernate가 준비하는 모든 SQL을 보고 테이블별 변경 버전을 올린다.
+엔티티 persist/merge 뿐 아니라 querydsl update/delete 같은 벌크연산도 SQL로는 보이기 때문에 같이 잡힌다.
+버전은 statement 준비 시점과 트랜잭션 종료 시점에 한 번씩 올린다 (커밋 전 값으로 캐싱된 결과가 커밋 후 살아남지 않도록)
+ */
+@Component
+public class TableChangeTracker implements StatementInspector {
+
+  public static final String MEMBER = "member";
+  public static final String TEAM = "team";
+
+  private static final Pattern WRITE_STATEMENT = Pattern.compile(
+      "^\\s*(?:/\\*.*?\\*/\\s*)*(?:insert\\s+into|update|delete\\s+from|delete|merge\\s+into)\\s+([\\w.]+)",
+      Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+  private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+  @Override
+  public String inspect(String sql) {
+    String table = writtenTable(sql);
+    if (table != null) {
+      changed(table);
+    }
+    return sql;
+  }
+
+  /*
+  insert/update/delete/merge 대상 테이블 이름 (소문자). 쓰기 SQL 이 아니면 null
+   */
+  public static String writtenTable(String sql) {
+    Matcher matcher = WRITE_STATEMENT.matcher(sql);
+    return matcher.find() ? tableName(matcher.group(1)) : null;
+  }
+
+  public long version(String... tables) {
+    long version = 0;
+    for (String table : tables) {
+      version += counter(table).get();
+    }
+    return version;
+  }
+
+  /*
+  현재 트랜잭션에서 아직 커밋되지 않은(혹은 flush 안 된) 변경이 있으면 공유 캐시를 쓰면 안 된다
+   */
+  public boolean hasPendingChanges(EntityManager em, String... tables) {
+    if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+      return false;
+    }
+    Set<String> written = writtenTables();
+    if (written != null) {
+      for (String table : tables) {
+        if (written.contains(table)) {
+          return true;
+        }
+      }
+    }
+    return em.unwrap(Session.class).isDirty();
+  }
+
+  private void changed(String table) {
+    bump(table);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    Set<String> written = writtenTables();
+    if (written == null) {
+      written = new HashSet<>();
+      TransactionSynchronizationManager.bindResource(this, written);
+      Set<String> tables = written;
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(TableChangeTracker.this);
+              tables.forEach(TableChangeTracker.this::bump);
+            }
+          });
+    }
+    written.add(table);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Set<String> writtenTables() {
+    return (Set<String>) TransactionSynchronizationManager.getResource(this);
+  }
+
+  private void bump(String table) {
+    counter(table).incrementAndGet();
+  }
+
+  private AtomicLong counter(String table) {
+    return versions.computeIfAbsent(table, t -> new AtomicLong());
+  }
+
+  private static String tableName(String qualified) {
+    int dot = qualified.lastIndexOf('.');
+    return qualified.substring(dot + 1).toLowerCase(Locale.ROOT);
+  }
+}
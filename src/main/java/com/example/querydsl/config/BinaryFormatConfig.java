@@ -0,0 +1,53 @@
+package com.example.querydsl.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Page;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/*
+Accept 헤더로 바이너리 응답을 고를 수 있게 한다 (기본은 그대로 JSON)
+- application/x-jackson-smile : 필드 이름을 한 번만 쓰고 이후엔 back reference. 반복되는 짧은 문자열 값(teamName)도 공유
+- application/cbor
+바이너리 응답의 Page 는 SlimPageSerializer 로 content + 페이지 정보만 (JSON 은 기존 클라이언트 때문에 PageImpl 그대로)
+boot 의 Jackson2ObjectMapperBuilder 로 만들어서 JSON 과 같은 모듈 / 설정을 쓴다
+ */
+@Configuration
+public class BinaryFormatConfig {
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(smileObjectMapper(builder));
+  }
+
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(cborObjectMapper(builder));
+  }
+
+  public static ObjectMapper smileObjectMapper(Jackson2ObjectMapperBuilder builder) {
+    SmileFactory factory = SmileFactory.builder()
+        .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+        .build();
+    return builder.factory(factory).build()
+        .registerModule(slimPageModule());
+  }
+
+  public static ObjectMapper cborObjectMapper(Jackson2ObjectMapperBuilder builder) {
+    return builder.factory(new CBORFactory()).build()
+        .registerModule(slimPageModule());
+  }
+
+  private static SimpleModule slimPageModule() {
+    return new SimpleModule("slimPage").addSerializer(Page.class, new SlimPageSerializer());
+  }
+}
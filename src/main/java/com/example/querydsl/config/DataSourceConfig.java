@@ -0,0 +1,58 @@
+package com.example.querydsl.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/*
+primary 는 기존처럼 spring.datasource.hikari 로 설정하고, member.datasource.replicas 가 있으면 라우팅 DataSource 로 감싼다.
+풀들은 빈으로 따로 등록하지 않는다 (SlowQueryLog 프록시가 DataSource 빈마다 씌워지므로 바깥 하나만 빈으로)
+ */
+@Configuration
+public class DataSourceConfig {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariConfig primaryHikariConfig() {
+    return new HikariConfig();
+  }
+
+  @Bean
+  public DataSource dataSource(HikariConfig primaryHikariConfig,
+      ReplicaDataSourceProperties properties) {
+    HikariDataSource primary = new HikariDataSource(primaryHikariConfig);
+    if (properties.getReplicas().isEmpty()) {
+      return primary;
+    }
+    List<HikariDataSource> replicas = new ArrayList<>();
+    for (HikariConfig replica : properties.getReplicas()) {
+      replica.setReadOnly(true);
+      replicas.add(new HikariDataSource(replica));
+    }
+    return new RoutingDataSourceProxy(
+        new ReplicaRoutingDataSource(primary, replicas, properties.getSelection()));
+  }
+
+  private static class RoutingDataSourceProxy extends LazyConnectionDataSourceProxy
+      implements Closeable {
+
+    private final ReplicaRoutingDataSource routing;
+
+    RoutingDataSourceProxy(ReplicaRoutingDataSource routing) {
+      super(routing);
+      this.routing = routing;
+    }
+
+    @Override
+    public void close() {
+      routing.close();
+    }
+  }
+}
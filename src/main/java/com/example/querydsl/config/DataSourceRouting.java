@@ -0,0 +1,115 @@
+package com.example.querydsl.config;
+
+import java.util.function.Supplier;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+read-your-writes 가 필요한 호출을 readOnly 트랜잭션이어도 primary 로 보낸다.
+라우팅은 커넥션을 실제로 얻는 시점에 결정되므로 트랜잭션 시작 전에(혹은 첫 쿼리 전에) 감싸야 한다
+ */
+public final class DataSourceRouting {
+
+  private static final ThreadLocal<Boolean> PRIMARY_FORCED = new ThreadLocal<>();
+  private static final Object REPLICA_CONNECTION = new Object();  //트랜잭션 resource key
+  private static final ThreadLocal<boolean[]> REPLICA_READ = new ThreadLocal<>();
+
+  private DataSourceRouting() {
+  }
+
+  public static <T> T onPrimary(Supplier<T> call) {
+    Boolean outer = PRIMARY_FORCED.get();
+    PRIMARY_FORCED.set(true);
+    try {
+      return call.get();
+    } finally {
+      if (outer == null) {
+        PRIMARY_FORCED.remove();
+      } else {
+        PRIMARY_FORCED.set(outer);
+      }
+    }
+  }
+
+  public static boolean isPrimaryForced() {
+    return Boolean.TRUE.equals(PRIMARY_FORCED.get());
+  }
+
+  /*
+  현재 트랜잭션의 커넥션이 replica 에서 왔는지. replica 는 primary 보다 뒤쳐져 있을 수 있으므로
+  primary 의 테이블 버전(TableChangeTracker)으로 표시하는 캐시에는 이 트랜잭션에서 읽은 결과를 넣으면 안 된다
+   */
+  public static boolean isReadingReplica() {
+    return TransactionSynchronizationManager.hasResource(REPLICA_CONNECTION);
+  }
+
+  /*
+  call 안의 트랜잭션 중 하나라도 replica 커넥션을 썼으면 replicaRead[0] = true.
+  isReadingReplica 와 달리 트랜잭션이 끝난 뒤(컨트롤러)에서도 알 수 있다 => 응답에 primary 버전을 붙일지 판단
+   */
+  public static <T> T watchReplicaReads(boolean[] replicaRead, Supplier<T> call) {
+    boolean[] outer = REPLICA_READ.get();
+    REPLICA_READ.set(replicaRead);
+    try {
+      return call.get();
+    } finally {
+      if (outer == null) {
+        REPLICA_READ.remove();
+      } else {
+        outer[0] |= replicaRead[0];
+        REPLICA_READ.set(outer);
+      }
+    }
+  }
+
+  /*
+  다른 스레드에서 실행할 call 에 현재 스레드의 primary 고정, replica 읽기 감시를 그대로 넘긴다
+   */
+  public static <T> Supplier<T> inheritRouting(Supplier<T> call) {
+    boolean primaryForced = isPrimaryForced();
+    boolean[] replicaRead = REPLICA_READ.get();
+    Supplier<T> routed = primaryForced ? () -> onPrimary(call) : call;
+    if (replicaRead == null) {
+      return routed;
+    }
+    return () -> {
+      boolean[] inner = new boolean[1];
+      try {
+        return watchReplicaReads(inner, routed);
+      } finally {
+        if (inner[0]) {
+          replicaRead[0] = true;
+        }
+      }
+    };
+  }
+
+  /*
+  다른 트랜잭션이 replica 에서 읽은 결과를 그대로 받았을 때 (MemberSearchCoalescer follower) => 이 트랜잭션도 replica 에서 읽은 것으로 본다
+   */
+  public static void replicaResultReceived() {
+    replicaConnectionObtained();
+  }
+
+  /*
+  ReplicaRoutingDataSource 가 트랜잭션 커넥션을 replica 로 보낼 때 호출. 트랜잭션이 끝나면 지운다
+   */
+  static void replicaConnectionObtained() {
+    boolean[] replicaRead = REPLICA_READ.get();
+    if (replicaRead != null) {
+      replicaRead[0] = true;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()
+        || TransactionSynchronizationManager.hasResource(REPLICA_CONNECTION)) {
+      return;
+    }
+    TransactionSynchronizationManager.bindResource(REPLICA_CONNECTION, Boolean.TRUE);
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronizationAdapter() {
+          @Override
+          public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(REPLICA_CONNECTION);
+          }
+        });
+  }
+}
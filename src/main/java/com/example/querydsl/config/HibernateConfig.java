@@ -0,0 +1,62 @@
+package com.example.querydsl.config;
+
+import static com.example.querydsl.cache.EntityCacheProperties.MEMBER;
+import static com.example.querydsl.cache.EntityCacheProperties.TEAM;
+import static com.example.querydsl.cache.EntityCacheProperties.TEAM_MEMBERS;
+
+import com.example.querydsl.cache.EntityCacheProperties;
+import com.example.querydsl.cache.MemberBulkWriteDetector;
+import com.example.querydsl.cache.TableChangeTracker;
+import com.example.querydsl.monitoring.LazyLoadDetector;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HibernateConfig {
+
+  @Bean
+  public HibernatePropertiesCustomizer statementInspectorCustomizer(TableChangeTracker tracker,
+      MemberBulkWriteDetector memberBulkWriteDetector, LazyLoadDetector lazyLoadDetector) {
+    StatementInspector inspector = sql ->
+        lazyLoadDetector.inspect(memberBulkWriteDetector.inspect(tracker.inspect(sql)));
+    return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+  }
+
+  /*
+  2차 캐시 region 은 hibernate 가 기본 설정(무제한)으로 만들기 전에 미리 만들어 둔다.
+  컨텍스트마다 자기 CacheManager 를 쓴다 (JVM 기본 manager 를 공유하면 테스트 컨텍스트 캐시에 같이 떠 있는
+  다른 컨텍스트의 region 을 destroy / close 하게 됨). 종료 시 자기 것만 close
+   */
+  @Bean(destroyMethod = "close")
+  public CacheManager entityCacheManager(EntityCacheProperties properties) {
+    CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+    CacheManager cacheManager = provider.getCacheManager(
+        URI.create("querydsl-" + UUID.randomUUID()), getClass().getClassLoader());
+    for (String region : List.of(TEAM, MEMBER, TEAM_MEMBERS)) {
+      CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+      configuration.setMaximumSize(OptionalLong.of(properties.maximumSize(region)));
+      configuration.setExpireAfterWrite(
+          OptionalLong.of(properties.expireAfterWrite(region).toNanos()));
+      cacheManager.createCache(region, configuration);
+    }
+    return cacheManager;
+  }
+
+  @Bean
+  public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+    return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+  }
+}
@@ -0,0 +1,60 @@
+package com.example.querydsl.config;
+
+import com.example.querydsl.cache.MemberBulkWriteDetector;
+import com.example.querydsl.monitoring.LazyLoadDetector;
+import com.example.querydsl.repository.UsernameGramIndex;
+import com.example.querydsl.snapshot.MemberSnapshotStore;
+import com.example.querydsl.stats.TeamStatsMaintainer;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.springframework.stereotype.Component;
+
+/*
+hibernate 이벤트 리스너는 SessionFactory 가 만들어진 뒤에 등록해야 해서 HibernatePropertiesCustomizer 대신 여기서 등록
+ */
+@Component
+@RequiredArgsConstructor
+public class HibernateListenerRegistrar {
+
+  private final EntityManagerFactory emf;
+  private final LazyLoadDetector lazyLoadDetector;
+  private final MemberBulkWriteDetector memberBulkWriteDetector;
+  private final TeamStatsMaintainer teamStatsMaintainer;
+  private final UsernameGramIndex usernameGramIndex;
+  private final MemberSnapshotStore memberSnapshotStore;
+
+  @PostConstruct
+  public void register() {
+    EventListenerRegistry registry = emf.unwrap(SessionFactoryImpl.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+
+    registry.prependListeners(EventType.LOAD, lazyLoadDetector.before());
+    registry.appendListeners(EventType.LOAD, lazyLoadDetector.after());
+    registry.prependListeners(EventType.INIT_COLLECTION, lazyLoadDetector.before());
+    registry.appendListeners(EventType.INIT_COLLECTION, lazyLoadDetector.after());
+
+    registry.appendListeners(EventType.PRE_INSERT, memberBulkWriteDetector);
+    registry.appendListeners(EventType.PRE_UPDATE, memberBulkWriteDetector);
+    registry.appendListeners(EventType.PRE_DELETE, memberBulkWriteDetector);
+    registry.appendListeners(EventType.POST_INSERT, memberBulkWriteDetector);
+    registry.appendListeners(EventType.POST_UPDATE, memberBulkWriteDetector);
+    registry.appendListeners(EventType.POST_DELETE, memberBulkWriteDetector);
+
+    registry.appendListeners(EventType.PRE_DELETE, teamStatsMaintainer);
+    registry.appendListeners(EventType.POST_INSERT, teamStatsMaintainer);
+    registry.appendListeners(EventType.POST_UPDATE, teamStatsMaintainer);
+
+    registry.appendListeners(EventType.POST_INSERT, usernameGramIndex);
+    registry.appendListeners(EventType.POST_UPDATE, usernameGramIndex);
+    registry.appendListeners(EventType.POST_DELETE, usernameGramIndex);
+
+    registry.appendListeners(EventType.POST_INSERT, memberSnapshotStore);
+    registry.appendListeners(EventType.POST_UPDATE, memberSnapshotStore);
+    registry.appendListeners(EventType.POST_DELETE, memberSnapshotStore);
+  }
+}
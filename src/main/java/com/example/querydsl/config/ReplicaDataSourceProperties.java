@@ -0,0 +1,27 @@
+package com.example.querydsl.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/*
+읽기 전용 복제본 풀. replicas 가 비어있으면 라우팅 없이 spring.datasource.hikari 하나만 쓴다
+member.datasource.replicas[0].jdbc-url, username, password, maximum-pool-size ... (HikariConfig 프로퍼티)
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("member.datasource")
+public class ReplicaDataSourceProperties {
+
+  public enum Selection {
+    ROUND_ROBIN, LEAST_BUSY
+  }
+
+  private Selection selection = Selection.ROUND_ROBIN;
+  private List<HikariConfig> replicas = new ArrayList<>();
+}
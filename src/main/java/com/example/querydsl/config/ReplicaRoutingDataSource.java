@@ -0,0 +1,76 @@
+package com.example.querydsl.config;
+
+import com.example.querydsl.config.ReplicaDataSourceProperties.Selection;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/*
+readOnly 트랜잭션 => replica (round-robin 혹은 활성 커넥션이 가장 적은 풀), 나머지 => primary
+트랜잭션의 readOnly 여부는 커넥션을 실제로 쓰는 시점에야 확정되므로 LazyConnectionDataSourceProxy 로 감싸서 쓴다
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+  private static final String PRIMARY = "primary";
+
+  private final HikariDataSource primary;
+  private final List<HikariDataSource> replicas;
+  private final Selection selection;
+  private final AtomicInteger next = new AtomicInteger();
+
+  public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+      Selection selection) {
+    this.primary = primary;
+    this.replicas = replicas;
+    this.selection = selection;
+
+    Map<Object, Object> targets = new HashMap<>();
+    targets.put(PRIMARY, primary);
+    for (int i = 0; i < replicas.size(); i++) {
+      targets.put(i, replicas.get(i));
+    }
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+    afterPropertiesSet();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (replicas.isEmpty() || DataSourceRouting.isPrimaryForced()
+        || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      return PRIMARY;
+    }
+    DataSourceRouting.replicaConnectionObtained();
+    return selection == Selection.LEAST_BUSY ? leastBusy() : roundRobin();
+  }
+
+  private int roundRobin() {
+    return Math.floorMod(next.getAndIncrement(), replicas.size());
+  }
+
+  private int leastBusy() {
+    int best = 0;
+    int bestActive = Integer.MAX_VALUE;
+    for (int i = 0; i < replicas.size(); i++) {
+      HikariPoolMXBean pool = replicas.get(i).getHikariPoolMXBean();
+      int active = pool == null ? 0 : pool.getActiveConnections();
+      if (active < bestActive) {
+        best = i;
+        bestActive = active;
+      }
+    }
+    return best;
+  }
+
+  @Override
+  public void close() {
+    replicas.forEach(HikariDataSource::close);
+    primary.close();
+  }
+}
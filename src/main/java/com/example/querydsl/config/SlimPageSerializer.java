@@ -0,0 +1,32 @@
+package com.example.querydsl.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import org.springframework.data.domain.Page;
+
+/*
+PageImpl 기본 직렬화(pageable, sort, first, last, numberOfElements, empty ...) 대신 필요한 값만
+{"content":[...],"page":0,"size":20,"totalElements":100,"totalPages":5}
+content 는 row 단위로 바로 generator 에 쓴다 (중간 트리 없음)
+ */
+@SuppressWarnings("rawtypes")
+public class SlimPageSerializer extends StdSerializer<Page> {
+
+  public SlimPageSerializer() {
+    super(Page.class);
+  }
+
+  @Override
+  public void serialize(Page page, JsonGenerator generator, SerializerProvider provider)
+      throws IOException {
+    generator.writeStartObject();
+    provider.defaultSerializeField("content", page.getContent(), generator);
+    generator.writeNumberField("page", page.getNumber());
+    generator.writeNumberField("size", page.getSize());
+    generator.writeNumberField("totalElements", page.getTotalElements());
+    generator.writeNumberField("totalPages", page.getTotalPages());
+    generator.writeEndObject();
+  }
+}
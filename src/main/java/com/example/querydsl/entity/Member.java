@@ -1,5 +1,6 @@
 package com.example.querydsl.entity;
 
+import com.example.querydsl.cache.EntityCacheProperties;
 import com.example.querydsl.entity.Team;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -7,22 +8,35 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Setter
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheProperties.MEMBER)
+@Table(indexes = {
+    @Index(name = "idx_member_username", columnList = "username"),
+    @Index(name = "idx_member_team_age", columnList = "team_id, age"),
+    @Index(name = "idx_member_age_covering", columnList = "age, team_id, username, member_id"),  //MemberTeamDto 의 member 컬럼을 인덱스만으로 조회
+    @Index(name = "idx_member_age_id", columnList = "age, member_id")  //age 커서 페이징 (age, member_id) 순서 seek
+})
 public class Member {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+  @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)  //IDENTITY 는 insert 배치가 꺼지므로 pooled sequence 사용
   @Column(name = "member_id")
   private Long id;
   private String username;
@@ -0,0 +1,58 @@
+package com.example.querydsl.entity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/*
+keyset(seek) 페이징용 커서. 마지막으로 내려준 row의 (정렬키, member_id)를 담고, 클라이언트에는 base64 문자열로만 노출한다.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class MemberCursor {
+
+  public enum SortKey {
+    ID, AGE
+  }
+
+  private static final String SEPARATOR = ":";
+
+  private final SortKey sortKey;
+  private final Integer age;
+  private final Long memberId;
+
+  public static MemberCursor first(SortKey sortKey) {
+    return new MemberCursor(sortKey, null, null);
+  }
+
+  public static MemberCursor after(SortKey sortKey, Integer age, Long memberId) {
+    return new MemberCursor(sortKey, age, memberId);
+  }
+
+  public boolean isFirst() {
+    return memberId == null;
+  }
+
+  public String encode() {
+    String raw = sortKey + SEPARATOR + (age == null ? "" : age) + SEPARATOR + memberId;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static MemberCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] parts = raw.split(SEPARATOR, -1);
+      if (parts.length != 3) {
+        throw new InvalidCursorException(cursor);
+      }
+      SortKey sortKey = SortKey.valueOf(parts[0]);
+      Integer age = parts[1].isEmpty() ? null : Integer.valueOf(parts[1]);
+      return new MemberCursor(sortKey, age, Long.valueOf(parts[2]));
+    } catch (IllegalArgumentException e) {
+      throw new InvalidCursorException(cursor);
+    }
+  }
+}
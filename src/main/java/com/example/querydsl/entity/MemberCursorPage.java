@@ -0,0 +1,18 @@
+package com.example.querydsl.entity;
+
+import java.util.List;
+import lombok.Getter;
+
+@Getter
+public class MemberCursorPage {
+
+  private final List<MemberTeamDto> content;
+  private final String nextCursor;
+  private final boolean hasNext;
+
+  public MemberCursorPage(List<MemberTeamDto> content, String nextCursor) {
+    this.content = content;
+    this.nextCursor = nextCursor;
+    this.hasNext = nextCursor != null;
+  }
+}
@@ -4,67 +4,89 @@ import static com.example.querydsl.entity.QMember.member;
 import static com.example.querydsl.entity.QTeam.team;
 import static org.springframework.util.StringUtils.hasText;
 
+import com.example.querydsl.cache.MemberCountCache;
+import com.example.querydsl.cache.MemberSearchCache;
+import com.example.querydsl.entity.MemberCursor.SortKey;
+import com.example.querydsl.monitoring.RepositoryMetrics;
+import com.example.querydsl.repository.MemberSearchCoalescer;
+import com.example.querydsl.repository.MemberSearchTemplate;
+import com.example.querydsl.repository.ParallelCountExecutor;
+import com.example.querydsl.repository.ParallelCountExecutor.ParallelCount;
+import com.example.querydsl.repository.UsernameGramIndex;
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.persistence.EntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
 
 public class MemberRepositoryImpl implements MemberSearchCustom {
 
+  private static final String REPOSITORY = "memberRepository";
+
+  private final EntityManager em;
   private final JPAQueryFactory queryFactory;
+  private final MemberCountCache countCache;
+  private final MemberSearchCache searchCache;
+  private final MemberSearchCoalescer coalescer;
+  private final MemberSearchTemplate searchTemplate;
+  private final RepositoryMetrics metrics;
+  private final ParallelCountExecutor parallelCountExecutor;
+  private final UsernameGramIndex usernameGramIndex;
 
-  public MemberRepositoryImpl(EntityManager em) {
+  public MemberRepositoryImpl(EntityManager em, MemberCountCache countCache,
+      MemberSearchCache searchCache, MemberSearchCoalescer coalescer, MeterRegistry meterRegistry,
+      RepositoryMetrics metrics, ParallelCountExecutor parallelCountExecutor,
+      UsernameGramIndex usernameGramIndex) {
+    this.em = em;
     this.queryFactory = new JPAQueryFactory(em);
+    this.countCache = countCache;
+    this.searchCache = searchCache;
+    this.coalescer = coalescer;
+    this.metrics = metrics;
+    this.parallelCountExecutor = parallelCountExecutor;
+    this.usernameGramIndex = usernameGramIndex;
+    this.searchTemplate = new MemberSearchTemplate("memberRepository.search",
+        this::selectMemberTeamDto, meterRegistry);
   }
 
   @Override
+  @Transactional(readOnly = true)
   public List<MemberTeamDto> search(MemberSearchCondition condition) {
-    return queryFactory
-        .select(new QMemberTeamDto(
-            member.id.as("id"),
-            member.username,
-            member.age,
-            team.id.as("teamId"),
-            team.name.as("teamName")
-        ))
-        .from(member)
-        .leftJoin(member.team, team)
-        .where(
-            usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
-            ageGoe(condition.getAgeGoe()),
-            ageLoe(condition.getAgeLoe())
-        )
-        .fetch();
+    return metrics.record(REPOSITORY, "search", condition,
+        () -> searchCache.list(em, "search", condition,
+            () -> coalescer.list(em, "search", condition,
+                () -> searchTemplate.fetch(em, condition))));
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-    QueryResults<MemberTeamDto> results = queryFactory
-        .select(new QMemberTeamDto(
-            member.id.as("id"),
-            member.username,
-            member.age,
-            team.id.as("teamId"),
-            team.name.as("teamName")
-        ))
-        .from(member)
-        .leftJoin(member.team, team)
-        .where(
-            usernameEq(condition.getUsername()),
-            teamNameEq(condition.getTeamName()),
-            ageGoe(condition.getAgeGoe()),
-            ageLoe(condition.getAgeLoe())
-        )
+    return metrics.record(REPOSITORY, "searchPageSimple", condition,
+        () -> searchCache.page(em, "searchPageSimple", condition, pageable,
+            () -> coalescer.page(em, "searchPageSimple", condition, pageable,
+                () -> searchPageSimpleQuery(condition, pageable))));
+  }
+
+  private Page<MemberTeamDto> searchPageSimpleQuery(MemberSearchCondition condition,
+      Pageable pageable) {
+    QueryResults<MemberTeamDto> results = selectMemberTeamDto(condition)
         .offset(pageable.getOffset())
         .limit(pageable.getPageSize())
-        .fetchResults();
+        .fetchResults();   //fetchResults 는 항상 count 쿼리를 같이 실행
+    metrics.countQuery(results::getTotal);
 
     List<MemberTeamDto> content = results.getResults();
     long total = results.getTotal();
@@ -73,28 +95,94 @@ public class MemberRepositoryImpl implements MemberSearchCustom {
   }
 
   @Override
+  @Transactional(readOnly = true)
   public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+    return metrics.record(REPOSITORY, "searchPageComplex", condition,
+        () -> searchCache.page(em, "searchPageComplex", condition, pageable,
+            () -> coalescer.page(em, "searchPageComplex", condition, pageable,
+                () -> searchPageComplexQuery(condition, pageable))));
+  }
+
+  private Page<MemberTeamDto> searchPageComplexQuery(MemberSearchCondition condition,
+      Pageable pageable) {
+    //count 를 다른 커넥션에서 먼저 시작해두고 content 쿼리와 동시에 실행 (허용량/풀이 꽉 찼으면 null => 기존처럼 순차 실행)
+    AtomicBoolean counted = new AtomicBoolean();
+    ParallelCount parallelCount = parallelCountExecutor.submit(em,
+        () -> countCache.count(em, condition, () -> {
+          counted.set(true);
+          return countQuery(condition).fetchCount();
+        }));
+
+    if (parallelCount != null) {
+      try {
+        List<MemberTeamDto> content = getMemberTeamDtos(condition, pageable);
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+          long total = parallelCount.getAsLong();
+          return counted.get() ? metrics.countQuery(() -> total) : total;
+        });
+      } finally {
+        parallelCount.cancel();  //getPage 가 count 를 건너뛰었으면 아직 시작 안 한 count 는 실행하지 않는다
+      }
+    }
+
     List<MemberTeamDto> content = getMemberTeamDtos(condition,
         pageable);
 
-    JPAQuery<Member> countQuery = queryFactory   //전체 count 조회쿼리를 최적화하고 싶을 때 별도 쿼리 작성
+    JPAQuery<Member> countQuery = countQuery(condition);   //전체 count 조회쿼리를 최적화하고 싶을 때 별도 쿼리 작성
+
+    return PageableExecutionUtils.getPage(content, pageable,
+        () -> countCache.count(em, condition,
+            () -> metrics.countQuery(countQuery::fetchCount))); //countQuery 실행 시점은 여기 => 이렇게 하면, 굳이 countQuery 안 날려도 되면 안 날린다.=> 최적화
+//    return new PageImpl<>(content, pageable, total);
+  }
+
+  private JPAQuery<Member> countQuery(MemberSearchCondition condition) {
+    JPAQuery<Member> query = queryFactory
         .select(member)
-        .from(member)
-        .leftJoin(member.team, team)
+        .from(member);
+    if (hasText(condition.getTeamName())) {  //member -> team 은 다대일이라 left join 은 건수에 영향이 없다 => team 조건이 있을 때만 조인
+      query.join(member.team, team);
+    }
+    return query
         .where(
-            usernameEq(condition.getUsername()),
+            usernameMatches(condition),
             teamNameEq(condition.getTeamName()),
             ageGoe(condition.getAgeGoe()),
             ageLoe(condition.getAgeLoe())
         );
-
-    return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount); //countQuery 실행 시점은 여기 => 이렇게 하면, 굳이 countQuery 안 날려도 되면 안 날린다.=> 최적화
-//    return new PageImpl<>(content, pageable, total);
   }
 
   private List<MemberTeamDto> getMemberTeamDtos(MemberSearchCondition condition,
       Pageable pageable) {
-    List<MemberTeamDto> content = queryFactory
+    List<MemberTeamDto> content = selectMemberTeamDto(condition)
+        .offset(pageable.getOffset())
+        .limit(pageable.getPageSize())
+        .fetch();
+    return content;
+  }
+
+  /*
+  무한스크롤처럼 전체 건수가 필요 없는 경우: pageSize + 1 개를 읽어서 다음 페이지 여부만 판단 => count 쿼리 자체가 없다
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+    return metrics.record(REPOSITORY, "searchSlice", condition, () -> {
+      List<MemberTeamDto> rows = selectMemberTeamDto(condition)
+          .offset(pageable.getOffset())
+          .limit(pageable.getPageSize() + 1)
+          .fetch();
+
+      boolean hasNext = rows.size() > pageable.getPageSize();
+      List<MemberTeamDto> content = hasNext
+          ? new ArrayList<>(rows.subList(0, pageable.getPageSize()))
+          : rows;
+      return new SliceImpl<>(content, pageable, hasNext);
+    });
+  }
+
+  JPAQuery<MemberTeamDto> selectMemberTeamDto(MemberSearchCondition condition) {
+    return joinTeam(queryFactory
         .select(new QMemberTeamDto(
             member.id.as("id"),
             member.username,
@@ -102,22 +190,88 @@ public class MemberRepositoryImpl implements MemberSearchCustom {
             team.id.as("teamId"),
             team.name.as("teamName")
         ))
-        .from(member)
-        .leftJoin(member.team, team)
+        .from(member), condition.getTeamName())
         .where(
-            usernameEq(condition.getUsername()),
+            usernameMatches(condition),
             teamNameEq(condition.getTeamName()),
             ageGoe(condition.getAgeGoe()),
             ageLoe(condition.getAgeLoe())
-        )
-        .offset(pageable.getOffset())
-        .limit(pageable.getPageSize())
-        .fetch();
-    return content;
+        );
+  }
+
+  /*
+  offset 대신 마지막 row의 (정렬키, member_id) 뒤부터 읽는다 => 몇 번째 페이지든 인덱스 seek 한 번으로 동일한 비용
+  size + 1 개를 읽어서 다음 페이지 존재 여부를 판단 (count 쿼리 없음)
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public MemberCursorPage searchByCursor(MemberSearchCondition condition, MemberCursor cursor,
+      int size) {
+    return metrics.record(REPOSITORY, "searchByCursor", condition, () -> {
+      List<Tuple> rows = selectByCursor(condition, cursor)
+          .limit(size + 1)
+          .fetch();
+
+      List<MemberTeamDto> content = new ArrayList<>(Math.min(rows.size(), size));
+      for (Tuple row : rows.subList(0, Math.min(rows.size(), size))) {
+        Integer age = row.get(member.age);
+        content.add(new MemberTeamDto(row.get(member.id), row.get(member.username),
+            age == null ? 0 : age, row.get(team.id), row.get(team.name)));
+      }
+      if (rows.size() <= size) {
+        return new MemberCursorPage(content, null);
+      }
+      Tuple last = rows.get(size - 1);
+      return new MemberCursorPage(content, MemberCursor
+          .after(cursor.getSortKey(), last.get(member.age), last.get(member.id)).encode());
+    });
+  }
+
+  /*
+  MemberTeamDto.age 는 int 라 null 이 0 으로 바뀐다 => 커서에는 null 구간을 구분할 수 있게 age 를 Integer 로 따로 읽는다
+   */
+  JPAQuery<Tuple> selectByCursor(MemberSearchCondition condition, MemberCursor cursor) {
+    return selectMemberTeamDto(condition)
+        .select(member.id, member.username, member.age, team.id, team.name)
+        .where(after(cursor))
+        .orderBy(cursorOrder(cursor.getSortKey()));
+  }
+
+  private BooleanExpression after(MemberCursor cursor) {
+    if (cursor.isFirst()) {
+      return null;
+    }
+    if (cursor.getSortKey() == SortKey.ID) {
+      return member.id.gt(cursor.getMemberId());
+    }
+    if (cursor.getAge() == null) {  //age asc nulls first 이므로 null 구간 이후 + null 이 아닌 전체
+      return member.age.isNull().and(member.id.gt(cursor.getMemberId()))
+          .or(member.age.isNotNull());
+    }
+    //age > ? or (age = ? and id > ?) 는 인덱스 seek 이 안 된다 => age >= ? 로 (age, member_id) 인덱스 범위를 잡고 나머지로 거른다
+    return member.age.goe(cursor.getAge())
+        .and(member.age.gt(cursor.getAge()).or(member.id.gt(cursor.getMemberId())));
+  }
+
+  private OrderSpecifier<?>[] cursorOrder(SortKey sortKey) {
+    if (sortKey == SortKey.ID) {
+      return new OrderSpecifier<?>[]{member.id.asc()};
+    }
+    return new OrderSpecifier<?>[]{member.age.asc().nullsFirst(), member.id.asc()};
+  }
+
+  /*
+  teamName 조건이 있으면 팀 없는 회원은 어차피 걸러지므로 inner join 으로 바꾼다
+  => left join 은 조인 순서가 고정되지만 inner join 은 DB가 team(name) 인덱스부터 읽고 member(team_id, age) 로 들어갈 수 있다
+   */
+  private <T> JPAQuery<T> joinTeam(JPAQuery<T> query, String teamName) {
+    return hasText(teamName)
+        ? query.join(member.team, team)
+        : query.leftJoin(member.team, team);
   }
 
-  private BooleanExpression usernameEq(String username) {
-    return hasText(username) ? member.username.eq(username) : null;
+  private BooleanExpression usernameMatches(MemberSearchCondition condition) {
+    return usernameGramIndex.predicate(condition.getUsername(), condition.usernameMatch());
   }
 
   private BooleanExpression teamNameEq(String teamName) {
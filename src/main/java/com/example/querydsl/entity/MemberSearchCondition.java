@@ -1,11 +1,96 @@
 package com.example.querydsl.entity;
 
+import static org.springframework.util.StringUtils.hasText;
+
+import java.util.ArrayList;
+import java.util.List;
 import lombok.Data;
 
 @Data
 public class MemberSearchCondition {
+
+  public static final int USERNAME = 1;
+  public static final int TEAM_NAME = 1 << 1;
+  public static final int AGE_GOE = 1 << 2;
+  public static final int AGE_LOE = 1 << 3;
+  public static final int USERNAME_PREFIX = 1 << 4;
+  public static final int USERNAME_CONTAINS = 1 << 5;
+
+  public enum UsernameMatch {
+    EXACT, PREFIX, CONTAINS
+  }
+
   private String username;
+  private UsernameMatch usernameMatch = UsernameMatch.EXACT;
   private String teamName;
   private Integer ageGoe;
   private Integer ageLoe;
+
+  /*
+  어떤 조건이 채워졌는지 bit 로 표현. username 일치 방식이 EXACT 면 0 ~ 15 이고 같은 shape 이면 생성되는 쿼리 모양이 같다
+   */
+  public int shape() {
+    int shape = 0;
+    if (hasText(username)) {
+      shape |= usernameShape();
+    }
+    if (hasText(teamName)) {
+      shape |= TEAM_NAME;
+    }
+    if (ageGoe != null) {
+      shape |= AGE_GOE;
+    }
+    if (ageLoe != null) {
+      shape |= AGE_LOE;
+    }
+    return shape;
+  }
+
+  /*
+  채워진 조건 값들을 where 절 순서(username, teamName, ageGoe, ageLoe)대로 (username 은 EXACT 일 때 기준)
+   */
+  public List<Object> parameters() {
+    List<Object> parameters = new ArrayList<>(4);
+    if (hasText(username)) {
+      parameters.add(username);
+    }
+    if (hasText(teamName)) {
+      parameters.add(teamName);
+    }
+    if (ageGoe != null) {
+      parameters.add(ageGoe);
+    }
+    if (ageLoe != null) {
+      parameters.add(ageLoe);
+    }
+    return parameters;
+  }
+
+  /*
+  검색 결과에 영향이 없는 차이(빈 문자열 vs null)를 없앤 복사본. 캐시 key 로 사용
+   */
+  public MemberSearchCondition normalize() {
+    MemberSearchCondition normalized = new MemberSearchCondition();
+    normalized.setUsername(hasText(username) ? username : null);
+    normalized.setUsernameMatch(hasText(username) ? usernameMatch() : UsernameMatch.EXACT);
+    normalized.setTeamName(hasText(teamName) ? teamName : null);
+    normalized.setAgeGoe(ageGoe);
+    normalized.setAgeLoe(ageLoe);
+    return normalized;
+  }
+
+  public UsernameMatch usernameMatch() {
+    return usernameMatch == null ? UsernameMatch.EXACT : usernameMatch;
+  }
+
+  private int usernameShape() {
+    switch (usernameMatch()) {
+      case PREFIX:
+        return USERNAME_PREFIX;
+      case CONTAINS:
+        return USERNAME_CONTAINS;
+      default:
+        return USERNAME;
+    }
+  }
 }
@@ -3,6 +3,7 @@ package com.example.querydsl.entity;
 import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 public interface MemberSearchCustom {
   List<MemberTeamDto> search(MemberSearchCondition condition);
@@ -11,4 +12,8 @@ public interface MemberSearchCustom {
 
 
   Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+
+  Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+
+  MemberCursorPage searchByCursor(MemberSearchCondition condition, MemberCursor cursor, int size);
 }
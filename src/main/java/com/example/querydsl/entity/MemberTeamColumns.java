@@ -0,0 +1,230 @@
+package com.example.querydsl.entity;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/*
+MemberTeamDto 목록을 컬럼별 배열로 담는다. 큰 리포트 조회용
+- List<MemberTeamDto> 는 row 마다 DTO 객체 + Long 박싱 2개 + 포인터 => row 당 ~100 byte
+- 여기서는 id / age / team 코드가 primitive 배열이고 team 은 (teamId, teamName) dictionary => row 당 ~24 byte (username 참조 포함)
+JSON 은 List<MemberTeamDto> 와 같은 모양으로 DTO 를 만들지 않고 바로 쓴다
+ */
+@JsonSerialize(using = MemberTeamColumns.Serializer.class)
+public class MemberTeamColumns implements Iterable<MemberTeamColumns.Row> {
+
+  private static final int NO_TEAM = -1;
+
+  private final int size;
+  private final long[] memberIds;
+  private final String[] usernames;
+  private final int[] ages;
+  private final int[] teams;
+  private final long[] teamIds;
+  private final String[] teamNames;
+
+  private MemberTeamColumns(Builder builder) {
+    this.size = builder.size;
+    this.memberIds = Arrays.copyOf(builder.memberIds, size);
+    this.usernames = Arrays.copyOf(builder.usernames, size);
+    this.ages = Arrays.copyOf(builder.ages, size);
+    this.teams = Arrays.copyOf(builder.teams, size);
+    this.teamIds = Arrays.copyOf(builder.teamIds, builder.teamCount);
+    this.teamNames = Arrays.copyOf(builder.teamNames, builder.teamCount);
+  }
+
+  public static Builder builder(int expectedSize) {
+    return new Builder(expectedSize);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public MemberTeamDto get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+    }
+    int team = teams[index];
+    return new MemberTeamDto(memberIds[index], usernames[index], ages[index],
+        team == NO_TEAM ? null : teamIds[team], team == NO_TEAM ? null : teamNames[team]);
+  }
+
+  public List<MemberTeamDto> toDtos() {
+    List<MemberTeamDto> dtos = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      dtos.add(get(i));
+    }
+    return dtos;
+  }
+
+  /*
+  대략적인 heap 크기 (배열 + username 문자열). 캐시 메모리 지표용
+   */
+  public long estimatedBytes() {
+    long bytes = 16L * 6 + size * (8L + 4 + 4 + 4) + teamIds.length * (8L + 4);
+    for (int i = 0; i < size; i++) {
+      bytes += usernames[i] == null ? 0 : 40 + usernames[i].length();
+    }
+    return bytes;
+  }
+
+  /*
+  row 마다 객체를 만들지 않도록 next() 는 위치만 옮긴 같은 Row 를 돌려준다 => 다음 next() 이후까지 들고 있으면 안 됨
+   */
+  @Override
+  public Iterator<Row> iterator() {
+    Row row = new Row();
+    return new Iterator<Row>() {
+      @Override
+      public boolean hasNext() {
+        return row.index + 1 < size;
+      }
+
+      @Override
+      public Row next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        row.index++;
+        return row;
+      }
+    };
+  }
+
+  /*
+  [{"memberId":1,"username":"member1","age":10,"teamId":1,"teamName":"teamA"}, ...]
+   */
+  public void writeJson(JsonGenerator generator) throws IOException {
+    generator.writeStartArray();
+    for (int i = 0; i < size; i++) {
+      int team = teams[i];
+      generator.writeStartObject();
+      generator.writeNumberField("memberId", memberIds[i]);
+      generator.writeStringField("username", usernames[i]);
+      generator.writeNumberField("age", ages[i]);
+      if (team == NO_TEAM) {
+        generator.writeNullField("teamId");
+        generator.writeNullField("teamName");
+      } else {
+        generator.writeNumberField("teamId", teamIds[team]);
+        generator.writeStringField("teamName", teamNames[team]);
+      }
+      generator.writeEndObject();
+    }
+    generator.writeEndArray();
+  }
+
+  public class Row {
+
+    private int index = -1;
+
+    public long getMemberId() {
+      return memberIds[index];
+    }
+
+    public String getUsername() {
+      return usernames[index];
+    }
+
+    public int getAge() {
+      return ages[index];
+    }
+
+    public Long getTeamId() {
+      return teams[index] == NO_TEAM ? null : teamIds[teams[index]];
+    }
+
+    public String getTeamName() {
+      return teams[index] == NO_TEAM ? null : teamNames[teams[index]];
+    }
+
+    public MemberTeamDto toDto() {
+      return get(index);
+    }
+  }
+
+  public static class Builder {
+
+    private int size;
+    private long[] memberIds;
+    private String[] usernames;
+    private int[] ages;
+    private int[] teams;
+
+    private int teamCount;
+    private long[] teamIds = new long[16];
+    private String[] teamNames = new String[16];
+    private final Map<Long, Integer> teamCodes = new HashMap<>();
+
+    private Builder(int expectedSize) {
+      int capacity = Math.max(16, expectedSize);
+      memberIds = new long[capacity];
+      usernames = new String[capacity];
+      ages = new int[capacity];
+      teams = new int[capacity];
+    }
+
+    public Builder add(long memberId, String username, int age, Long teamId, String teamName) {
+      if (size == memberIds.length) {
+        int capacity = size * 2;
+        memberIds = Arrays.copyOf(memberIds, capacity);
+        usernames = Arrays.copyOf(usernames, capacity);
+        ages = Arrays.copyOf(ages, capacity);
+        teams = Arrays.copyOf(teams, capacity);
+      }
+      memberIds[size] = memberId;
+      usernames[size] = username;
+      ages[size] = age;
+      teams[size] = teamId == null ? NO_TEAM : teamCode(teamId, teamName);
+      size++;
+      return this;
+    }
+
+    public Builder add(MemberTeamDto dto) {
+      return add(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(),
+          dto.getTeamName());
+    }
+
+    public MemberTeamColumns build() {
+      return new MemberTeamColumns(this);
+    }
+
+    private int teamCode(Long teamId, String teamName) {
+      Integer code = teamCodes.get(teamId);
+      if (code != null) {
+        return code;
+      }
+      if (teamCount == teamIds.length) {
+        teamIds = Arrays.copyOf(teamIds, teamCount * 2);
+        teamNames = Arrays.copyOf(teamNames, teamCount * 2);
+      }
+      teamIds[teamCount] = teamId;
+      teamNames[teamCount] = teamName;
+      teamCodes.put(teamId, teamCount);
+      return teamCount++;
+    }
+  }
+
+  public static class Serializer extends StdSerializer<MemberTeamColumns> {
+
+    public Serializer() {
+      super(MemberTeamColumns.class);
+    }
+
+    @Override
+    public void serialize(MemberTeamColumns value, JsonGenerator generator,
+        SerializerProvider provider) throws IOException {
+      value.writeJson(generator);
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.example.querydsl.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/*
+username 부분일치 검색용 trigram 역색인. 행은 UsernameGramIndex 가 JDBC 로만 쓰고 (엔티티로 persist 하지 않음)
+(gram, member_id) 인덱스로 검색어의 trigram 을 모두 가진 회원만 골라낸 뒤 member 를 PK 로 읽는다
+ */
+@Getter
+@Entity
+@Table(indexes = {
+    @Index(name = "idx_member_username_gram_gram", columnList = "gram, member_id"),
+    @Index(name = "idx_member_username_gram_member", columnList = "member_id")
+})
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberUsernameGram {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "member_id", nullable = false)
+  private Long memberId;
+  @Column(nullable = false, length = 3)
+  private String gram;
+}
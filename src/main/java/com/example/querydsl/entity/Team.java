@@ -1,30 +1,43 @@
 package com.example.querydsl.entity;
 
+import com.example.querydsl.cache.EntityCacheProperties;
 import java.util.ArrayList;
 import java.util.List;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Setter
 @Getter
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheProperties.TEAM)
+@BatchSize(size = 100)  //member.team 프록시를 in 절로 100개씩 초기화
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name, id"))
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 public class Team {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+  @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
   private Long id;
   private String name;
 
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = EntityCacheProperties.TEAM_MEMBERS)
+  @BatchSize(size = 100)
   @OneToMany(mappedBy = "team")
   private List<Member> members = new ArrayList<>();
 
@@ -0,0 +1,36 @@
+package com.example.querydsl.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/*
+팀별 / 나이별 회원 수 롤업. 행은 TeamStatsMaintainer 가 JDBC 로만 쓰고 (엔티티로 persist 하지 않음)
+팀 통계(count/sum/avg/max/min)는 이 테이블만 group by 해서 구한다 => member 테이블을 스캔하지 않음
+ */
+@Getter
+@Entity
+@Table(indexes = @Index(name = "idx_team_age_stats_team_age", columnList = "team_id, age_key",
+    unique = true))  //동시에 같은 (팀, 나이) 첫 행을 넣어도 한 행만 => MERGE 로 증감
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class TeamAgeStats {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "team_id", nullable = false)
+  private Long teamId;
+  private Integer age;
+
+  @Column(name = "age_key", nullable = false)
+  private int ageKey;  //age, null 이면 TeamStatsMaintainer.NULL_AGE_KEY (unique 제약은 null 을 중복으로 보지 않음)
+  private long memberCount;
+}
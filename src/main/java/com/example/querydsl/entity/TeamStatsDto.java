@@ -0,0 +1,26 @@
+package com.example.querydsl.entity;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+@Data
+public class TeamStatsDto {
+  private String teamName;
+  private long memberCount;
+  private long ageSum;
+  private Double ageAvg;
+  private Integer ageMax;
+  private Integer ageMin;
+
+  // ageAvg 는 member.age.avg() 처럼 age 가 null 인 회원은 빼고 계산
+  @QueryProjection
+  public TeamStatsDto(String teamName, Long memberCount, Long ageSum, Long agedCount,
+      Integer ageMax, Integer ageMin) {
+    this.teamName = teamName;
+    this.memberCount = memberCount == null ? 0 : memberCount;
+    this.ageSum = ageSum == null ? 0 : ageSum;
+    this.ageAvg = agedCount == null || agedCount == 0 ? null : (double) this.ageSum / agedCount;
+    this.ageMax = ageMax;
+    this.ageMin = ageMin;
+  }
+}
@@ -0,0 +1,158 @@
+package com.example.querydsl.monitoring;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.hibernate.HibernateException;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/*
+scope(요청, 테스트 블록) 안에서 실행된 SQL 수와, 실제로 SQL 을 날린 lazy 로딩을 종류별로 센다.
+프록시 초기화(IMMEDIATE_LOAD)와 컬렉션 초기화 앞뒤로 statement 수를 비교하므로
+batch fetch 로 이미 로딩된 프록시나 2차 캐시 hit 은 세지 않는다.
+scope 가 열려있지 않은 스레드에서는 ThreadLocal 조회 한 번만 하고 끝.
+before/after 리스너는 같은 event 객체를 받으므로 event 로 짝을 맞춘다 => 로딩이 예외로 끝나서 after 가 안 불린 표시는
+바깥 로딩의 after 에서 같이 버려지고, 이후 카운트가 밀리지 않는다
+ */
+@Component
+public class LazyLoadDetector implements StatementInspector {
+
+  private final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+  public Scope open() {
+    Scope scope = new Scope(current.get());
+    current.set(scope);
+    return scope;
+  }
+
+  @Override
+  public String inspect(String sql) {
+    Scope scope = current.get();
+    if (scope != null) {
+      scope.statements++;
+    }
+    return sql;
+  }
+
+  /*
+  hibernate 기본 리스너 앞/뒤에 등록된다 (HibernateListenerRegistrar)
+   */
+  public Listener before() {
+    return new Listener(true);
+  }
+
+  public Listener after() {
+    return new Listener(false);
+  }
+
+  private void begin(Object event) {
+    Scope scope = current.get();
+    if (scope != null) {
+      scope.loading.push(new Loading(event, scope.statements));
+    }
+  }
+
+  private void end(Object event, String key) {
+    Scope scope = current.get();
+    if (scope == null || scope.loading.stream().noneMatch(loading -> loading.event == event)) {
+      return;
+    }
+    Loading loading;
+    do {
+      loading = scope.loading.pop();  //위에 쌓인 건 실패해서 after 가 안 불린 안쪽 로딩
+    } while (loading.event != event);
+    if (scope.statements > loading.statements) {
+      scope.lazyLoads.merge(key, 1, Integer::sum);
+    }
+  }
+
+  public class Listener implements LoadEventListener, InitializeCollectionEventListener {
+
+    private final boolean before;
+
+    private Listener(boolean before) {
+      this.before = before;
+    }
+
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) throws HibernateException {
+      if (loadType != IMMEDIATE_LOAD) {
+        return;
+      }
+      if (before) {
+        begin(event);
+      } else {
+        end(event, event.getEntityClassName());
+      }
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) throws HibernateException {
+      if (before) {
+        begin(event);
+      } else {
+        end(event, event.getCollection().getRole());
+      }
+    }
+  }
+
+  public class Scope implements AutoCloseable {
+
+    private final Scope parent;
+    private final Map<String, Integer> lazyLoads = new LinkedHashMap<>();
+    private final Deque<Loading> loading = new ArrayDeque<>();
+    private long statements;
+
+    private Scope(Scope parent) {
+      this.parent = parent;
+    }
+
+    public long getStatementCount() {
+      return statements;
+    }
+
+    public Map<String, Integer> getLazyLoads() {
+      return Collections.unmodifiableMap(lazyLoads);
+    }
+
+    /*
+    threshold 번 이상 반복된 lazy 로딩 (N+1 의심)
+     */
+    public Map<String, Integer> repeatedLazyLoads(int threshold) {
+      return lazyLoads.entrySet().stream()
+          .filter(entry -> entry.getValue() >= threshold)
+          .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    @Override
+    public void close() {
+      loading.clear();
+      if (parent != null) {
+        parent.statements += statements;
+        lazyLoads.forEach((key, count) -> parent.lazyLoads.merge(key, count, Integer::sum));
+        current.set(parent);
+      } else {
+        current.remove();
+      }
+    }
+  }
+
+  private static class Loading {
+
+    private final Object event;
+    private final long statements;
+
+    private Loading(Object event, long statements) {
+      this.event = event;
+      this.statements = statements;
+    }
+  }
+}
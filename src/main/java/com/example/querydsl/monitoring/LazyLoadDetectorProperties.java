@@ -0,0 +1,19 @@
+package com.example.querydsl.monitoring;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/*
+한 요청 안에서 같은 lazy 로딩(엔티티 타입 / 컬렉션 role)이 threshold 번 이상 SQL 을 날리면 N+1 로 보고 경고
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("member.lazy-load-detector")
+public class LazyLoadDetectorProperties {
+
+  private boolean enabled = true;
+  private int threshold = 3;
+}
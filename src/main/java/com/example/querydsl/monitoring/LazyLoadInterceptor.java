@@ -0,0 +1,48 @@
+package com.example.querydsl.monitoring;
+
+import com.example.querydsl.monitoring.LazyLoadDetector.Scope;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/*
+요청 단위로 LazyLoadDetector scope 를 열고, 끝날 때 반복된 lazy 로딩이 있으면 경고 로그
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LazyLoadInterceptor implements HandlerInterceptor {
+
+  private static final String SCOPE = LazyLoadInterceptor.class.getName() + ".scope";
+
+  private final LazyLoadDetector lazyLoadDetector;
+  private final LazyLoadDetectorProperties properties;
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    if (properties.isEnabled()) {
+      request.setAttribute(SCOPE, lazyLoadDetector.open());
+    }
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    Scope scope = (Scope) request.getAttribute(SCOPE);
+    if (scope == null) {
+      return;
+    }
+    scope.close();
+    Map<String, Integer> repeated = scope.repeatedLazyLoads(properties.getThreshold());
+    if (!repeated.isEmpty()) {
+      log.warn("N+1 suspected: {} {} statements={} repeatedLazyLoads={}",
+          request.getMethod(), request.getRequestURI(), scope.getStatementCount(), repeated);
+    }
+  }
+}
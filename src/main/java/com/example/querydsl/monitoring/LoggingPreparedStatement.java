@@ -0,0 +1,722 @@
+package com.example.querydsl.monitoring;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+/*
+SlowQueryLoggingDataSource 가 돌려주는 PreparedStatement. execute* 시간과 바인딩 값만 잡고 나머지는 그대로 위임한다
+(JDK proxy 로 감싸면 바인딩 하나하나가 reflection 호출이 되므로 직접 구현)
+ */
+@SuppressWarnings("deprecation")
+class LoggingPreparedStatement implements PreparedStatement {
+
+  private final PreparedStatement target;
+  private final StatementExecution execution;
+
+  LoggingPreparedStatement(PreparedStatement target, StatementExecution execution) {
+    this.target = target;
+    this.execution = execution;
+  }
+
+  @Override
+  public ResultSet executeQuery() throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    ResultSet result = target.executeQuery();
+    return execution.executed(execution.preparedSql(), result, System.nanoTime() - started);
+  }
+
+  @Override
+  public int executeUpdate() throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    int result = target.executeUpdate();
+    return execution.executed(execution.preparedSql(), result, System.nanoTime() - started);
+  }
+
+  @Override
+  public void setNull(int parameterIndex, int sqlType) throws SQLException {
+    execution.bind(parameterIndex, null);
+    target.setNull(parameterIndex, sqlType);
+  }
+
+  @Override
+  public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setBoolean(parameterIndex, x);
+  }
+
+  @Override
+  public void setByte(int parameterIndex, byte x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setByte(parameterIndex, x);
+  }
+
+  @Override
+  public void setShort(int parameterIndex, short x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setShort(parameterIndex, x);
+  }
+
+  @Override
+  public void setInt(int parameterIndex, int x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setInt(parameterIndex, x);
+  }
+
+  @Override
+  public void setLong(int parameterIndex, long x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setLong(parameterIndex, x);
+  }
+
+  @Override
+  public void setFloat(int parameterIndex, float x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setFloat(parameterIndex, x);
+  }
+
+  @Override
+  public void setDouble(int parameterIndex, double x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setDouble(parameterIndex, x);
+  }
+
+  @Override
+  public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setBigDecimal(parameterIndex, x);
+  }
+
+  @Override
+  public void setString(int parameterIndex, String x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setString(parameterIndex, x);
+  }
+
+  @Override
+  public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setBytes(parameterIndex, x);
+  }
+
+  @Override
+  public void setDate(int parameterIndex, Date x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setDate(parameterIndex, x);
+  }
+
+  @Override
+  public void setTime(int parameterIndex, Time x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setTime(parameterIndex, x);
+  }
+
+  @Override
+  public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setTimestamp(parameterIndex, x);
+  }
+
+  @Override
+  public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setAsciiStream(parameterIndex, x, length);
+  }
+
+  @Override
+  public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setUnicodeStream(parameterIndex, x, length);
+  }
+
+  @Override
+  public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setBinaryStream(parameterIndex, x, length);
+  }
+
+  @Override
+  public void clearParameters() throws SQLException {
+    execution.clearParameters();
+    target.clearParameters();
+  }
+
+  @Override
+  public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setObject(parameterIndex, x, targetSqlType);
+  }
+
+  @Override
+  public void setObject(int parameterIndex, Object x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setObject(parameterIndex, x);
+  }
+
+  @Override
+  public boolean execute() throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    boolean result = target.execute();
+    return execution.executed(execution.preparedSql(), result, System.nanoTime() - started);
+  }
+
+  @Override
+  public void addBatch() throws SQLException {
+    target.addBatch();
+  }
+
+  @Override
+  public void setCharacterStream(int parameterIndex, Reader x, int length) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setCharacterStream(parameterIndex, x, length);
+  }
+
+  @Override
+  public void setRef(int parameterIndex, Ref x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setRef(parameterIndex, x);
+  }
+
+  @Override
+  public void setBlob(int parameterIndex, Blob x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setBlob(parameterIndex, x);
+  }
+
+  @Override
+  public void setClob(int parameterIndex, Clob x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setClob(parameterIndex, x);
+  }
+
+  @Override
+  public void setArray(int parameterIndex, Array x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setArray(parameterIndex, x);
+  }
+
+  @Override
+  public ResultSetMetaData getMetaData() throws SQLException {
+    return target.getMetaData();
+  }
+
+  @Override
+  public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setDate(parameterIndex, x, cal);
+  }
+
+  @Override
+  public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setTime(parameterIndex, x, cal);
+  }
+
+  @Override
+  public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setTimestamp(parameterIndex, x, cal);
+  }
+
+  @Override
+  public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+    execution.bind(parameterIndex, null);
+    target.setNull(parameterIndex, sqlType, typeName);
+  }
+
+  @Override
+  public void setURL(int parameterIndex, URL x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setURL(parameterIndex, x);
+  }
+
+  @Override
+  public ParameterMetaData getParameterMetaData() throws SQLException {
+    return target.getParameterMetaData();
+  }
+
+  @Override
+  public void setRowId(int parameterIndex, RowId x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setRowId(parameterIndex, x);
+  }
+
+  @Override
+  public void setNString(int parameterIndex, String x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setNString(parameterIndex, x);
+  }
+
+  @Override
+  public void setNCharacterStream(int parameterIndex, Reader x, long length) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setNCharacterStream(parameterIndex, x, length);
+  }
+
+  @Override
+  public void setNClob(int parameterIndex, NClob x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setNClob(parameterIndex, x);
+  }
+
+  @Override
+  public void setClob(int parameterIndex, Reader x, long length) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setClob(parameterIndex, x, length);
+  }
+
+  @Override
+  public void setBlob(int parameterIndex, InputStream x, long length) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setBlob(parameterIndex, x, length);
+  }
+
+  @Override
+  public void setNClob(int parameterIndex, Reader x, long length) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setNClob(parameterIndex, x, length);
+  }
+
+  @Override
+  public void setSQLXML(int parameterIndex, SQLXML x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setSQLXML(parameterIndex, x);
+  }
+
+  @Override
+  public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength)
+      throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+  }
+
+  @Override
+  public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setAsciiStream(parameterIndex, x, length);
+  }
+
+  @Override
+  public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setBinaryStream(parameterIndex, x, length);
+  }
+
+  @Override
+  public void setCharacterStream(int parameterIndex, Reader x, long length) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setCharacterStream(parameterIndex, x, length);
+  }
+
+  @Override
+  public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setAsciiStream(parameterIndex, x);
+  }
+
+  @Override
+  public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setBinaryStream(parameterIndex, x);
+  }
+
+  @Override
+  public void setCharacterStream(int parameterIndex, Reader x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setCharacterStream(parameterIndex, x);
+  }
+
+  @Override
+  public void setNCharacterStream(int parameterIndex, Reader x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setNCharacterStream(parameterIndex, x);
+  }
+
+  @Override
+  public void setClob(int parameterIndex, Reader x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setClob(parameterIndex, x);
+  }
+
+  @Override
+  public void setBlob(int parameterIndex, InputStream x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setBlob(parameterIndex, x);
+  }
+
+  @Override
+  public void setNClob(int parameterIndex, Reader x) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setNClob(parameterIndex, x);
+  }
+
+  @Override
+  public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength)
+      throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+  }
+
+  @Override
+  public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+    execution.bind(parameterIndex, x);
+    target.setObject(parameterIndex, x, targetSqlType);
+  }
+
+  @Override
+  public long executeLargeUpdate() throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    long result = target.executeLargeUpdate();
+    return execution.executed(execution.preparedSql(), result, System.nanoTime() - started);
+  }
+
+  @Override
+  public ResultSet executeQuery(String sql) throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    ResultSet result = target.executeQuery(sql);
+    return execution.executed(sql, result, System.nanoTime() - started);
+  }
+
+  @Override
+  public int executeUpdate(String sql) throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    int result = target.executeUpdate(sql);
+    return execution.executed(sql, result, System.nanoTime() - started);
+  }
+
+  @Override
+  public void close() throws SQLException {
+    execution.finishResultSet();
+    target.close();
+  }
+
+  @Override
+  public int getMaxFieldSize() throws SQLException {
+    return target.getMaxFieldSize();
+  }
+
+  @Override
+  public void setMaxFieldSize(int max) throws SQLException {
+    target.setMaxFieldSize(max);
+  }
+
+  @Override
+  public int getMaxRows() throws SQLException {
+    return target.getMaxRows();
+  }
+
+  @Override
+  public void setMaxRows(int max) throws SQLException {
+    target.setMaxRows(max);
+  }
+
+  @Override
+  public void setEscapeProcessing(boolean enable) throws SQLException {
+    target.setEscapeProcessing(enable);
+  }
+
+  @Override
+  public int getQueryTimeout() throws SQLException {
+    return target.getQueryTimeout();
+  }
+
+  @Override
+  public void setQueryTimeout(int seconds) throws SQLException {
+    target.setQueryTimeout(seconds);
+  }
+
+  @Override
+  public void cancel() throws SQLException {
+    target.cancel();
+  }
+
+  @Override
+  public SQLWarning getWarnings() throws SQLException {
+    return target.getWarnings();
+  }
+
+  @Override
+  public void clearWarnings() throws SQLException {
+    target.clearWarnings();
+  }
+
+  @Override
+  public void setCursorName(String name) throws SQLException {
+    target.setCursorName(name);
+  }
+
+  @Override
+  public boolean execute(String sql) throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    boolean result = target.execute(sql);
+    return execution.executed(sql, result, System.nanoTime() - started);
+  }
+
+  @Override
+  public ResultSet getResultSet() throws SQLException {
+    return target.getResultSet();
+  }
+
+  @Override
+  public int getUpdateCount() throws SQLException {
+    return target.getUpdateCount();
+  }
+
+  @Override
+  public boolean getMoreResults() throws SQLException {
+    return target.getMoreResults();
+  }
+
+  @Override
+  public void setFetchDirection(int direction) throws SQLException {
+    target.setFetchDirection(direction);
+  }
+
+  @Override
+  public int getFetchDirection() throws SQLException {
+    return target.getFetchDirection();
+  }
+
+  @Override
+  public void setFetchSize(int rows) throws SQLException {
+    target.setFetchSize(rows);
+  }
+
+  @Override
+  public int getFetchSize() throws SQLException {
+    return target.getFetchSize();
+  }
+
+  @Override
+  public int getResultSetConcurrency() throws SQLException {
+    return target.getResultSetConcurrency();
+  }
+
+  @Override
+  public int getResultSetType() throws SQLException {
+    return target.getResultSetType();
+  }
+
+  @Override
+  public void addBatch(String sql) throws SQLException {
+    target.addBatch(sql);
+  }
+
+  @Override
+  public void clearBatch() throws SQLException {
+    target.clearBatch();
+  }
+
+  @Override
+  public int[] executeBatch() throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    int[] result = target.executeBatch();
+    return execution.executed(execution.preparedSql(), result, System.nanoTime() - started);
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return target.getConnection();
+  }
+
+  @Override
+  public boolean getMoreResults(int current) throws SQLException {
+    return target.getMoreResults(current);
+  }
+
+  @Override
+  public ResultSet getGeneratedKeys() throws SQLException {
+    return target.getGeneratedKeys();
+  }
+
+  @Override
+  public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    int result = target.executeUpdate(sql, autoGeneratedKeys);
+    return execution.executed(sql, result, System.nanoTime() - started);
+  }
+
+  @Override
+  public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    int result = target.executeUpdate(sql, columnIndexes);
+    return execution.executed(sql, result, System.nanoTime() - started);
+  }
+
+  @Override
+  public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    int result = target.executeUpdate(sql, columnNames);
+    return execution.executed(sql, result, System.nanoTime() - started);
+  }
+
+  @Override
+  public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    boolean result = target.execute(sql, autoGeneratedKeys);
+    return execution.executed(sql, result, System.nanoTime() - started);
+  }
+
+  @Override
+  public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    boolean result = target.execute(sql, columnIndexes);
+    return execution.executed(sql, result, System.nanoTime() - started);
+  }
+
+  @Override
+  public boolean execute(String sql, String[] columnNames) throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    boolean result = target.execute(sql, columnNames);
+    return execution.executed(sql, result, System.nanoTime() - started);
+  }
+
+  @Override
+  public int getResultSetHoldability() throws SQLException {
+    return target.getResultSetHoldability();
+  }
+
+  @Override
+  public boolean isClosed() throws SQLException {
+    return target.isClosed();
+  }
+
+  @Override
+  public void setPoolable(boolean poolable) throws SQLException {
+    target.setPoolable(poolable);
+  }
+
+  @Override
+  public boolean isPoolable() throws SQLException {
+    return target.isPoolable();
+  }
+
+  @Override
+  public void closeOnCompletion() throws SQLException {
+    target.closeOnCompletion();
+  }
+
+  @Override
+  public boolean isCloseOnCompletion() throws SQLException {
+    return target.isCloseOnCompletion();
+  }
+
+  @Override
+  public long getLargeUpdateCount() throws SQLException {
+    return target.getLargeUpdateCount();
+  }
+
+  @Override
+  public void setLargeMaxRows(long max) throws SQLException {
+    target.setLargeMaxRows(max);
+  }
+
+  @Override
+  public long getLargeMaxRows() throws SQLException {
+    return target.getLargeMaxRows();
+  }
+
+  @Override
+  public long[] executeLargeBatch() throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    long[] result = target.executeLargeBatch();
+    return execution.executed(execution.preparedSql(), result, System.nanoTime() - started);
+  }
+
+  @Override
+  public long executeLargeUpdate(String sql) throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    long result = target.executeLargeUpdate(sql);
+    return execution.executed(sql, result, System.nanoTime() - started);
+  }
+
+  @Override
+  public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    long result = target.executeLargeUpdate(sql, autoGeneratedKeys);
+    return execution.executed(sql, result, System.nanoTime() - started);
+  }
+
+  @Override
+  public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    long result = target.executeLargeUpdate(sql, columnIndexes);
+    return execution.executed(sql, result, System.nanoTime() - started);
+  }
+
+  @Override
+  public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+    execution.finishResultSet();
+    long started = System.nanoTime();
+    long result = target.executeLargeUpdate(sql, columnNames);
+    return execution.executed(sql, result, System.nanoTime() - started);
+  }
+
+  @Override
+  public String enquoteLiteral(String val) throws SQLException {
+    return target.enquoteLiteral(val);
+  }
+
+  @Override
+  public String enquoteIdentifier(String identifier, boolean alwaysQuote) throws SQLException {
+    return target.enquoteIdentifier(identifier, alwaysQuote);
+  }
+
+  @Override
+  public boolean isSimpleIdentifier(String identifier) throws SQLException {
+    return target.isSimpleIdentifier(identifier);
+  }
+
+  @Override
+  public String enquoteNCharLiteral(String val) throws SQLException {
+    return target.enquoteNCharLiteral(val);
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> type) throws SQLException {
+    return target.unwrap(type);
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> type) throws SQLException {
+    return target.isWrapperFor(type);
+  }
+}
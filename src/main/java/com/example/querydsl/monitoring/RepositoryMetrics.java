@@ -0,0 +1,142 @@
+package com.example.querydsl.monitoring;
+
+import com.example.querydsl.entity.MemberCursorPage;
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberTeamColumns;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+/*
+repository 메서드별 latency(timer) / 반환 row 수(distribution summary)
+tag: repository, method, shape(채워진 검색조건), countQuery(count 쿼리가 실제로 나갔는지), outcome
+percentile 설정은 application.yml management.metrics.distribution
+ */
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetrics {
+
+  public static final String NO_CONDITION = "none";
+
+  private static final ThreadLocal<boolean[]> COUNT_QUERY_RAN = new ThreadLocal<>();
+
+  private final MeterRegistry registry;
+
+  public <T> T record(String repository, String method, MemberSearchCondition condition,
+      Supplier<T> query) {
+    return record(repository, method, shapeTag(condition), query);
+  }
+
+  public <T> T record(String repository, String method, String shape, Supplier<T> query) {
+    boolean[] outer = COUNT_QUERY_RAN.get();
+    boolean[] countQueryRan = {false};
+    COUNT_QUERY_RAN.set(countQueryRan);
+
+    long started = System.nanoTime();
+    String outcome = "error";
+    T result = null;
+    try {
+      result = query.get();
+      outcome = "success";
+      return result;
+    } finally {
+      long elapsed = System.nanoTime() - started;
+      restore(outer);
+
+      Tags tags = Tags.of(
+          "repository", repository,
+          "method", method,
+          "shape", shape,
+          "countQuery", Boolean.toString(countQueryRan[0]));
+      Timer.builder("member.repository.query")
+          .tags(tags.and("outcome", outcome))
+          .register(registry)
+          .record(elapsed, TimeUnit.NANOSECONDS);
+      if (result != null) {
+        DistributionSummary.builder("member.repository.rows")
+            .baseUnit("rows")
+            .tags(tags)
+            .register(registry)
+            .record(rows(result));
+      }
+    }
+  }
+
+  /*
+  count 쿼리를 실제로 실행하는 지점을 감싼다 (캐시 hit 이나 PageableExecutionUtils 로 생략되면 호출되지 않음)
+   */
+  public long countQuery(LongSupplier count) {
+    boolean[] countQueryRan = COUNT_QUERY_RAN.get();
+    if (countQueryRan != null) {
+      countQueryRan[0] = true;
+    }
+    return count.getAsLong();
+  }
+
+  public static String shapeTag(MemberSearchCondition condition) {
+    int shape = condition.shape();
+    if (shape == 0) {
+      return NO_CONDITION;
+    }
+    StringJoiner joiner = new StringJoiner(",");
+    if ((shape & MemberSearchCondition.USERNAME) != 0) {
+      joiner.add("username");
+    }
+    if ((shape & MemberSearchCondition.USERNAME_PREFIX) != 0) {
+      joiner.add("usernamePrefix");
+    }
+    if ((shape & MemberSearchCondition.USERNAME_CONTAINS) != 0) {
+      joiner.add("usernameContains");
+    }
+    if ((shape & MemberSearchCondition.TEAM_NAME) != 0) {
+      joiner.add("teamName");
+    }
+    if ((shape & MemberSearchCondition.AGE_GOE) != 0) {
+      joiner.add("ageGoe");
+    }
+    if ((shape & MemberSearchCondition.AGE_LOE) != 0) {
+      joiner.add("ageLoe");
+    }
+    return joiner.toString();
+  }
+
+  private static void restore(boolean[] outer) {
+    if (outer == null) {
+      COUNT_QUERY_RAN.remove();
+    } else {
+      COUNT_QUERY_RAN.set(outer);
+    }
+  }
+
+  private static long rows(Object result) {
+    if (result instanceof Collection) {
+      return ((Collection<?>) result).size();
+    }
+    if (result instanceof Slice) {
+      return ((Slice<?>) result).getNumberOfElements();
+    }
+    if (result instanceof MemberCursorPage) {
+      return ((MemberCursorPage) result).getContent().size();
+    }
+    if (result instanceof MemberTeamColumns) {
+      return ((MemberTeamColumns) result).size();
+    }
+    if (result instanceof Optional) {
+      return ((Optional<?>) result).isPresent() ? 1 : 0;
+    }
+    if (result instanceof Number) {
+      return ((Number) result).longValue();
+    }
+    return 1;
+  }
+}
@@ -0,0 +1,99 @@
+package com.example.querydsl.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+/*
+p6spy / hibernate SQL debug 로그 대체.
+요청 스레드에서는 (느리거나 샘플링된 경우에만) 이벤트를 링버퍼에 넣기만 하고, 포맷팅과 로그 출력은 별도 데몬 스레드가 한다
+ */
+@Slf4j
+@Component
+public class SlowQueryLog implements MeterBinder, DisposableBean {
+
+  private final boolean enabled;
+  private final long slowThresholdNanos;
+  private final double sampleRate;
+  private final BlockingQueue<SqlEvent> buffer;
+  private final Thread writer;
+
+  private final LongAdder slow = new LongAdder();
+  private final LongAdder sampled = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  public SlowQueryLog(SlowQueryLogProperties properties) {
+    this.enabled = properties.isEnabled();
+    this.slowThresholdNanos = properties.getSlowThreshold().toNanos();
+    this.sampleRate = properties.getSampleRate();
+    this.buffer = new ArrayBlockingQueue<>(properties.getBufferSize());
+    this.writer = new Thread(this::drain, "slow-query-log");
+    this.writer.setDaemon(true);
+    if (enabled) {
+      this.writer.start();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /*
+  요청 스레드에서 statement 마다 호출된다 => 기록 대상이 아니면 아무것도 할당하지 않고 바로 리턴
+   */
+  void record(String sql, Object[] parameters, int parameterCount, long elapsedNanos, long rows) {
+    boolean isSlow = elapsedNanos >= slowThresholdNanos;
+    if (!isSlow && (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+      return;
+    }
+    (isSlow ? slow : sampled).increment();
+
+    SqlEvent event = new SqlEvent(sql, Arrays.copyOf(parameters, parameterCount), elapsedNanos,
+        rows, isSlow, Thread.currentThread().getName());
+    if (!buffer.offer(event)) {
+      dropped.increment();
+    }
+  }
+
+  SqlEvent poll() {
+    return buffer.poll();
+  }
+
+  private void drain() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        SqlEvent event = buffer.take();
+        if (event.isSlow()) {
+          log.warn(event.format());
+        } else {
+          log.info(event.format());
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("member.sql.log", slow, LongAdder::doubleValue)
+        .tag("type", "slow").register(registry);
+    FunctionCounter.builder("member.sql.log", sampled, LongAdder::doubleValue)
+        .tag("type", "sampled").register(registry);
+    FunctionCounter.builder("member.sql.log", dropped, LongAdder::doubleValue)
+        .tag("type", "dropped").register(registry);
+  }
+
+  @Override
+  public void destroy() {
+    writer.interrupt();
+  }
+}
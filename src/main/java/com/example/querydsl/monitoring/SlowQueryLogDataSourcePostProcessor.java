@@ -0,0 +1,25 @@
+package com.example.querydsl.monitoring;
+
+import javax.sql.DataSource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class SlowQueryLogDataSourcePostProcessor implements BeanPostProcessor {
+
+  private final ObjectProvider<SlowQueryLog> slowQueryLog;
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (bean instanceof DataSource && !(bean instanceof SlowQueryLoggingDataSource)) {
+      SlowQueryLog log = slowQueryLog.getObject();
+      if (log.isEnabled()) {
+        return new SlowQueryLoggingDataSource((DataSource) bean, log);
+      }
+    }
+    return bean;
+  }
+}
@@ -0,0 +1,23 @@
+package com.example.querydsl.monitoring;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/*
+slowThreshold 이상 걸린 SQL 은 전부, 나머지는 sampleRate 비율로만 기록
+bufferSize 는 로그 스레드로 넘기는 링버퍼 크기 (가득 차면 버리고 dropped 카운트만 올린다)
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("member.sql-log")
+public class SlowQueryLogProperties {
+
+  private boolean enabled = true;
+  private Duration slowThreshold = Duration.ofMillis(100);
+  private double sampleRate = 0.0;
+  private int bufferSize = 4096;
+}
@@ -0,0 +1,132 @@
+package com.example.querydsl.monitoring;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/*
+Connection / Statement / ResultSet 을 감싸서 실행 시간, 바인딩 값, row 수를 잰다.
+실행 시간 = execute 시간 + ResultSet.next() 에서 보낸 시간 (애플리케이션이 row 를 처리하는 시간은 제외)
+select 는 ResultSet 이 닫힐 때(혹은 statement 가 닫힐 때) row 수와 함께 기록
+- 호출이 많은 PreparedStatement(바인딩), ResultSet(getter, next)은 직접 위임하는 클래스로 감싼다 (호출마다 reflection 없음).
+  시간은 execute* 와 next 에서만 잰다
+- Connection 과 드물게 쓰는 Statement / CallableStatement 는 JDK proxy
+ */
+public class SlowQueryLoggingDataSource extends DelegatingDataSource implements Closeable {
+
+  private final SlowQueryLog slowQueryLog;
+
+  public SlowQueryLoggingDataSource(DataSource target, SlowQueryLog slowQueryLog) {
+    super(target);
+    this.slowQueryLog = slowQueryLog;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return proxy(obtainTargetDataSource().getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return proxy(obtainTargetDataSource().getConnection(username, password));
+  }
+
+  // 감싼 풀(HikariDataSource 등)의 close 가 컨텍스트 종료 시 그대로 호출되도록
+  @Override
+  public void close() throws IOException {
+    DataSource target = obtainTargetDataSource();
+    if (target instanceof Closeable) {
+      ((Closeable) target).close();
+    }
+  }
+
+  private Connection proxy(Connection connection) {
+    return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getTargetException();
+    }
+  }
+
+  private class ConnectionHandler implements InvocationHandler {
+
+    private final Connection target;
+
+    ConnectionHandler(Connection target) {
+      this.target = target;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      Object result = SlowQueryLoggingDataSource.invoke(target, method, args);
+      String name = method.getName();
+      if (result instanceof Statement && (name.equals("prepareStatement")
+          || name.equals("prepareCall") || name.equals("createStatement"))) {
+        String sql = args != null && args.length > 0 && args[0] instanceof String
+            ? (String) args[0] : null;
+        StatementExecution execution = new StatementExecution(slowQueryLog, sql);
+        if (result instanceof PreparedStatement && !(result instanceof CallableStatement)) {
+          return new LoggingPreparedStatement((PreparedStatement) result, execution);
+        }
+        Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+            : Statement.class;
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+            new StatementHandler((Statement) result, execution));
+      }
+      return result;
+    }
+  }
+
+  private static class StatementHandler implements InvocationHandler {
+
+    private final Statement target;
+    private final StatementExecution execution;
+
+    StatementHandler(Statement target, StatementExecution execution) {
+      this.target = target;
+      this.execution = execution;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+        execution.bind((Integer) args[0], name.equals("setNull") ? null : args[1]);
+        return SlowQueryLoggingDataSource.invoke(target, method, args);
+      }
+      if (name.equals("clearParameters")) {
+        execution.clearParameters();
+        return SlowQueryLoggingDataSource.invoke(target, method, args);
+      }
+      if (name.equals("close")) {
+        execution.finishResultSet();
+        return SlowQueryLoggingDataSource.invoke(target, method, args);
+      }
+      if (!name.startsWith("execute")) {
+        return SlowQueryLoggingDataSource.invoke(target, method, args);
+      }
+
+      String sql = args != null && args.length > 0 && args[0] instanceof String
+          ? (String) args[0] : execution.preparedSql();
+      execution.finishResultSet();
+      long started = System.nanoTime();
+      Object result = SlowQueryLoggingDataSource.invoke(target, method, args);
+      return execution.executed(sql, result, System.nanoTime() - started);
+    }
+  }
+}
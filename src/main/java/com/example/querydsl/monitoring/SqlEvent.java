@@ -0,0 +1,23 @@
+package com.example.querydsl.monitoring;
+
+import java.util.Arrays;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+class SqlEvent {
+
+  private final String sql;
+  private final Object[] parameters;
+  private final long elapsedNanos;
+  private final long rows;
+  private final boolean slow;
+  private final String thread;
+
+  String format() {
+    return String.format("%s %.3fms rows=%d thread=%s sql=[%s] params=%s",
+        slow ? "SLOW" : "SAMPLED", elapsedNanos / 1_000_000.0, rows, thread,
+        sql, Arrays.toString(parameters));
+  }
+}
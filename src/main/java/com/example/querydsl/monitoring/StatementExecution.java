@@ -0,0 +1,75 @@
+package com.example.querydsl.monitoring;
+
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+/*
+statement 하나의 바인딩 값과 열려있는 ResultSet. 실행이 끝나면(ResultSet 이면 닫힐 때) SlowQueryLog 에 기록
+ */
+class StatementExecution {
+
+  private final SlowQueryLog slowQueryLog;
+  private final String preparedSql;
+  private Object[] parameters = new Object[8];
+  private int parameterCount;
+  private LoggingResultSet openResultSet;
+
+  StatementExecution(SlowQueryLog slowQueryLog, String preparedSql) {
+    this.slowQueryLog = slowQueryLog;
+    this.preparedSql = preparedSql;
+  }
+
+  String preparedSql() {
+    return preparedSql;
+  }
+
+  void bind(int index, Object value) {
+    if (index > parameters.length) {
+      parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+    }
+    parameters[index - 1] = value;
+    parameterCount = Math.max(parameterCount, index);
+  }
+
+  void clearParameters() {
+    Arrays.fill(parameters, 0, parameterCount, null);
+    parameterCount = 0;
+  }
+
+  void finishResultSet() {
+    if (openResultSet != null) {
+      openResultSet.finish();
+      openResultSet = null;
+    }
+  }
+
+  /*
+  execute* 결과. ResultSet 이면 next() 시간과 row 수를 이어서 재도록 감싸고, 아니면 바로 기록
+   */
+  @SuppressWarnings("unchecked")
+  <T> T executed(String sql, T result, long elapsedNanos) {
+    if (result instanceof ResultSet) {
+      openResultSet = new LoggingResultSet((ResultSet) result, this, sql, elapsedNanos);
+      return (T) openResultSet;
+    }
+    record(sql, elapsedNanos, rows(result));
+    return result;
+  }
+
+  void record(String sql, long elapsedNanos, long rows) {
+    slowQueryLog.record(sql, parameters, parameterCount, elapsedNanos, rows);
+  }
+
+  private static long rows(Object result) {
+    if (result instanceof Integer || result instanceof Long) {
+      return ((Number) result).longValue();
+    }
+    if (result instanceof int[]) {
+      return Arrays.stream((int[]) result).filter(count -> count > 0).asLongStream().sum();
+    }
+    if (result instanceof long[]) {
+      return Arrays.stream((long[]) result).filter(count -> count > 0).sum();
+    }
+    return -1;
+  }
+}
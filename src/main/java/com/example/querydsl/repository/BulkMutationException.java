@@ -0,0 +1,21 @@
+package com.example.querydsl.repository;
+
+import lombok.Getter;
+
+/*
+chunk 실행 실패. 실패한 chunk 만 롤백되고 그 전 chunk 들은 커밋된 상태
+ */
+@Getter
+public class BulkMutationException extends RuntimeException {
+
+  private final BulkProgress progress;
+
+  public BulkMutationException(BulkProgress progress, Throwable cause) {
+    super("bulk mutation failed after member_id " + progress.getLastId(), cause);
+    this.progress = progress;
+  }
+
+  public Long getResumeAfterId() {
+    return progress.getLastId();
+  }
+}
@@ -0,0 +1,25 @@
+package com.example.querydsl.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/*
+벌크 update/delete 를 member_id 범위 chunkSize 단위로 나눠서 각각 짧은 트랜잭션으로 실행
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("member.bulk")
+public class BulkMutationProperties {
+
+  private long chunkSize = 1000;
+
+  public void setChunkSize(long chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+    }
+    this.chunkSize = chunkSize;
+  }
+}
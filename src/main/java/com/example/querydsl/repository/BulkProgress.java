@@ -0,0 +1,29 @@
+package com.example.querydsl.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/*
+chunk 하나가 커밋될 때마다 만들어지는 진행 상황. lastId 까지는 커밋 완료 => 실패 시 resumeAfterId 로 넘기면 이어서 진행
+ */
+@Getter
+@RequiredArgsConstructor
+public class BulkProgress {
+
+  private final long maxId;
+  private final Long lastId;
+  private final int chunks;
+  private final long affectedRows;
+
+  static BulkProgress start(long maxId, Long resumeAfterId) {
+    return new BulkProgress(maxId, resumeAfterId, 0, 0);
+  }
+
+  BulkProgress next(long lastId, long affectedRows) {
+    return new BulkProgress(maxId, lastId, chunks + 1, this.affectedRows + affectedRows);
+  }
+
+  public boolean isCompleted() {
+    return lastId != null && lastId >= maxId;
+  }
+}
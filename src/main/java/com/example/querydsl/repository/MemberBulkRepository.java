@@ -0,0 +1,109 @@
+package com.example.querydsl.repository;
+
+import static com.example.querydsl.cache.TableChangeTracker.MEMBER;
+import static com.example.querydsl.entity.QMember.member;
+
+import com.example.querydsl.cache.TableChangeTracker;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import java.util.function.Consumer;
+import javax.persistence.EntityManager;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+update(member).set(...).execute() 를 한 번에 날리면 대상 row 전체에 락을 잡은 채로 오래 돈다.
+member_id 범위 [from, from + chunkSize) 로 잘라서 chunk 마다 새 트랜잭션(REQUIRES_NEW)으로 커밋 => 락은 chunk 하나 동안만
+- 호출하는 쪽 트랜잭션이 같은 row 를 잡고 있으면 안 된다 (chunk 트랜잭션이 기다리게 됨)
+- 시작 시점의 max(member_id) 까지만 처리. 이후에 들어온 회원은 대상이 아니다
+- 호출하는 쪽에 flush/커밋 안 된 member 변경이 있으면 시작하지 않는다 (chunk 트랜잭션은 못 보고, 마지막 clear 에 버려진다)
+- 성공하든 중간에 실패하든 끝나면 호출한 쪽 영속성 컨텍스트를 clear => 벌크 전 상태의 엔티티가 남지 않는다
+ */
+@Repository
+public class MemberBulkRepository {
+
+  private final EntityManager em;
+  private final JPAQueryFactory queryFactory;
+  private final TransactionTemplate chunkTransaction;
+  private final BulkMutationProperties properties;
+  private final TableChangeTracker tracker;
+
+  public MemberBulkRepository(EntityManager em, PlatformTransactionManager transactionManager,
+      BulkMutationProperties properties, TableChangeTracker tracker) {
+    this.em = em;
+    this.queryFactory = new JPAQueryFactory(em);
+    this.chunkTransaction = new TransactionTemplate(transactionManager);
+    this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.properties = properties;
+    this.tracker = tracker;
+  }
+
+  public BulkProgress update(Predicate predicate, Consumer<JPAUpdateClause> assignments,
+      Long resumeAfterId, Consumer<BulkProgress> listener) {
+    return run(resumeAfterId, listener, (from, to) -> {
+      JPAUpdateClause update = queryFactory.update(member)
+          .where(member.id.goe(from), member.id.lt(to), predicate);
+      assignments.accept(update);
+      return update.execute();
+    });
+  }
+
+  public BulkProgress delete(Predicate predicate, Long resumeAfterId,
+      Consumer<BulkProgress> listener) {
+    return run(resumeAfterId, listener, (from, to) -> queryFactory.delete(member)
+        .where(member.id.goe(from), member.id.lt(to), predicate)
+        .execute());
+  }
+
+  private BulkProgress run(Long resumeAfterId, Consumer<BulkProgress> listener,
+      ChunkMutation mutation) {
+    if (tracker.hasPendingChanges(em, MEMBER)) {
+      throw new IllegalStateException("member has pending changes in the calling transaction");
+    }
+    try {
+      return runChunks(resumeAfterId, listener, mutation);
+    } finally {
+      em.clear();
+    }
+  }
+
+  private BulkProgress runChunks(Long resumeAfterId, Consumer<BulkProgress> listener,
+      ChunkMutation mutation) {
+    Tuple range = chunkTransaction.execute(status -> queryFactory
+        .select(member.id.min(), member.id.max())
+        .from(member)
+        .fetchOne());
+    Long minId = range == null ? null : range.get(member.id.min());
+    Long maxId = range == null ? null : range.get(member.id.max());
+    if (minId == null || maxId == null) {
+      return BulkProgress.start(0, resumeAfterId);
+    }
+
+    BulkProgress progress = BulkProgress.start(maxId, resumeAfterId);
+    long from = resumeAfterId == null ? minId : Math.max(minId, resumeAfterId + 1);
+    while (from <= maxId) {
+      long chunkFrom = from;
+      long chunkTo = from + properties.getChunkSize();
+      Long affected;
+      try {
+        affected = chunkTransaction.execute(status -> mutation.apply(chunkFrom, chunkTo));
+      } catch (RuntimeException e) {
+        throw new BulkMutationException(progress, e);
+      }
+      progress = progress.next(Math.min(chunkTo - 1, maxId), affected == null ? 0 : affected);
+      listener.accept(progress);
+      from = chunkTo;
+    }
+    return progress;
+  }
+
+  @FunctionalInterface
+  private interface ChunkMutation {
+
+    long apply(long from, long to);
+  }
+}
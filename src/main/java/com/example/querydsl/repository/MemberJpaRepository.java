@@ -7,68 +7,201 @@ import static org.springframework.util.StringUtils.isEmpty;
 
 import com.example.querydsl.entity.Member;
 import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberTeamColumns;
 import com.example.querydsl.entity.MemberTeamDto;
 import com.example.querydsl.entity.QMember;
 import com.example.querydsl.entity.QMemberTeamDto;
 import com.example.querydsl.entity.QTeam;
+import com.example.querydsl.monitoring.RepositoryMetrics;
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.hibernate.HibernateQueryFactory;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import javax.persistence.EntityManager;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 @Repository
 public class MemberJpaRepository {
 
+  private static final String REPOSITORY = "memberJpaRepository";
+
   private final EntityManager em;
   private final JPAQueryFactory queryFactory;
+  private final int batchSize;
+  private final MemberSearchTemplate builderTemplate;
+  private final MemberSearchTemplate searchTemplate;
+  private final RepositoryMetrics metrics;
+  private final UsernameGramIndex usernameGramIndex;
 
-  public MemberJpaRepository(EntityManager em) {
+  public MemberJpaRepository(EntityManager em,
+      @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize,
+      MeterRegistry meterRegistry, RepositoryMetrics metrics,
+      UsernameGramIndex usernameGramIndex) {
     this.em = em;
     this.queryFactory = new JPAQueryFactory(em);
+    this.batchSize = batchSize;
+    this.metrics = metrics;
+    this.usernameGramIndex = usernameGramIndex;
+    this.builderTemplate = new MemberSearchTemplate("searchByBuilder", this::searchByBuilderQuery,
+        meterRegistry);
+    this.searchTemplate = new MemberSearchTemplate("search", this::searchQuery, meterRegistry);
   }
 
   public void save(Member member) {
     em.persist(member);
   }
 
+  /*
+  hibernate.jdbc.batch_size 만큼 persist 후 flush + detach => insert 가 batch 로 묶여서 나가고 영속성 컨텍스트도 계속 커지지 않는다
+  - 넘겨받은 member 만 detach 된다 (호출 후 members 는 준영속). clear 가 아니라서 호출한 쪽의 Team 등 다른 엔티티는 그대로 영속 상태
+  - batch_size 가 0 이하(배치 꺼짐)면 중간 flush 없이 마지막에 한 번만
+   */
+  public void saveAll(Iterable<Member> members) {
+    List<Member> batch = new ArrayList<>(batchSize > 0 ? batchSize : 16);
+    for (Member member : members) {
+      em.persist(member);
+      batch.add(member);
+      if (batchSize > 0 && batch.size() == batchSize) {
+        flushAndDetach(batch);
+      }
+    }
+    flushAndDetach(batch);
+  }
+
+  private void flushAndDetach(List<Member> batch) {
+    em.flush();
+    batch.forEach(em::detach);
+    batch.clear();
+  }
+
+  @Transactional(readOnly = true)
   public Optional<Member> findById(Long id){
-    Member member = em.find(Member.class, id);
-    return Optional.of(member);
+    return metrics.record(REPOSITORY, "findById", "id", () -> {
+      Member member = em.find(Member.class, id);
+      return Optional.of(member);
+    });
   }
 
+  @Transactional(readOnly = true)
   public List<Member> findAll() {
-    return em.createQuery("select m from Member m", Member.class).getResultList();
+    return metrics.record(REPOSITORY, "findAll", RepositoryMetrics.NO_CONDITION,
+        () -> em.createQuery("select m from Member m", Member.class).getResultList());
   }
 
+  @Transactional(readOnly = true)
   public List<Member> findAll_Querydsl() {
-    return queryFactory
-        .selectFrom(member)
-        .fetch();
+    return findAll_Querydsl(ReadMode.MANAGED);
+  }
+
+  @Transactional(readOnly = true)
+  public List<Member> findAll_Querydsl(ReadMode readMode) {
+    return metrics.record(REPOSITORY, "findAll_Querydsl", RepositoryMetrics.NO_CONDITION,
+        () -> findMembers(readMode, null));
   }
 
+  @Transactional(readOnly = true)
   public List<Member> findByUsername_Querydsl(String username) {
-    return queryFactory
+    return findByUsername_Querydsl(username, ReadMode.MANAGED);
+  }
+
+  @Transactional(readOnly = true)
+  public List<Member> findByUsername_Querydsl(String username, ReadMode readMode) {
+    return metrics.record(REPOSITORY, "findByUsername_Querydsl", "username",
+        () -> findMembers(readMode, member.username.eq(username)));
+  }
+
+  private List<Member> findMembers(ReadMode readMode, Predicate predicate) {
+    if (readMode == ReadMode.STATELESS) {
+      return findMembersStateless(predicate);
+    }
+    JPAQuery<Member> query = queryFactory
         .selectFrom(member)
-        .where(member.username.eq(username))
-        .fetch();
+        .where(predicate);
+    if (readMode == ReadMode.READ_ONLY) {
+      query.setHint(QueryHints.HINT_READONLY, true)
+          .setHint(QueryHints.HINT_FLUSH_MODE, FlushMode.MANUAL);
+    }
+    return query.fetch();
+  }
+
+  /*
+  현재 트랜잭션의 커넥션을 그대로 빌려서 StatelessSession 을 연다 => flush 된 변경은 보이고, 트랜잭션 밖에서 커넥션을 또 잡지 않는다
+   */
+  private List<Member> findMembersStateless(Predicate predicate) {
+    Session session = em.unwrap(Session.class);
+    return session.doReturningWork(connection -> {
+      StatelessSession stateless = session.getSessionFactory()
+          .withStatelessOptions()
+          .connection(connection)
+          .openStatelessSession();
+      try {
+        return new HibernateQueryFactory(stateless)
+            .selectFrom(member)
+            .leftJoin(member.team, team).fetchJoin()
+            .where(predicate)
+            .fetch();
+      } finally {
+        stateless.close();
+      }
+    });
   }
 
+  @Transactional(readOnly = true)
   public List<Member> findByUsername(String username) {
-    return em.createQuery("select m from Member m where m.username = :username", Member.class)
-        .setParameter("username", username)
-        .getResultList();
+    return metrics.record(REPOSITORY, "findByUsername", "username",
+        () -> em.createQuery("select m from Member m where m.username = :username", Member.class)
+            .setParameter("username", username)
+            .getResultList());
   }
 
+  @Transactional(readOnly = true)
   public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
+    return metrics.record(REPOSITORY, "searchByBuilder", condition,
+        () -> builderTemplate.fetch(em, condition));
+  }
+
+  @Transactional(readOnly = true)
+  public List<MemberTeamDto> search(MemberSearchCondition condition) {
+    return metrics.record(REPOSITORY, "search", condition,
+        () -> searchTemplate.fetch(em, condition));
+  }
+
+  /*
+  템플릿 없이 매번 querydsl 쿼리를 만들고 JPQL 로 직렬화해서 실행 => BooleanBuilder vs where 파라미터 자체의 비용 비교 / 템플릿 효과 측정용
+   */
+  @Transactional(readOnly = true)
+  public List<MemberTeamDto> searchByBuilderUntemplated(MemberSearchCondition condition) {
+    return metrics.record(REPOSITORY, "searchByBuilderUntemplated", condition,
+        () -> searchByBuilderQuery(condition).fetch());
+  }
+
+  @Transactional(readOnly = true)
+  public List<MemberTeamDto> searchUntemplated(MemberSearchCondition condition) {
+    return metrics.record(REPOSITORY, "searchUntemplated", condition,
+        () -> searchQuery(condition).fetch());
+  }
+
+  private JPAQuery<MemberTeamDto> searchByBuilderQuery(MemberSearchCondition condition) {
     BooleanBuilder builder = new BooleanBuilder();
 
     if (hasText(condition.getUsername())) {
-      builder.and(member.username.eq(condition.getUsername()));
+      builder.and(usernameMatches(condition));
     }
 
     if (hasText(condition.getTeamName())) {
@@ -83,7 +216,7 @@ public class MemberJpaRepository {
       builder.and(member.age.loe(condition.getAgeLoe()));
     }
 
-    return queryFactory
+    return joinTeam(queryFactory
         .select(new QMemberTeamDto(
             member.id.as("id"),
             member.username,
@@ -91,14 +224,12 @@ public class MemberJpaRepository {
             team.id.as("teamId"),
             team.name.as("teamName")
         ))
-        .from(member)
-        .leftJoin(member.team, team)
-        .where(builder)
-        .fetch();
+        .from(member), condition.getTeamName())
+        .where(builder);
   }
 
-  public List<MemberTeamDto> search(MemberSearchCondition condition) {
-    return queryFactory
+  private JPAQuery<MemberTeamDto> searchQuery(MemberSearchCondition condition) {
+    return joinTeam(queryFactory
         .select(new QMemberTeamDto(
             member.id.as("id"),
             member.username,
@@ -106,19 +237,74 @@ public class MemberJpaRepository {
             team.id.as("teamId"),
             team.name.as("teamName")
         ))
-        .from(member)
-        .leftJoin(member.team, team)
+        .from(member), condition.getTeamName())
         .where(
-            usernameEq(condition.getUsername()),
+            usernameMatches(condition),
             teamNameEq(condition.getTeamName()),
             ageGoe(condition.getAgeGoe()),
             ageLoe(condition.getAgeLoe())
-        )
-        .fetch();
+        );
+  }
+
+  /*
+  search 와 같은 조건을 컬럼형으로 담는다. row 는 커서로 읽으면서 바로 배열에 넣으므로 DTO 가 남지 않는다
+   */
+  @Transactional(readOnly = true)
+  public MemberTeamColumns searchColumns(MemberSearchCondition condition, int fetchSize) {
+    return metrics.record(REPOSITORY, "searchColumns", condition, () -> {
+      MemberTeamColumns.Builder columns = MemberTeamColumns.builder(fetchSize);
+      try (CloseableIterator<Tuple> rows = searchQuery(condition)
+          .select(member.id, member.username, member.age, team.id, team.name)
+          .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+          .setHint(QueryHints.HINT_READONLY, true)
+          .iterate()) {
+        while (rows.hasNext()) {
+          Tuple row = rows.next();
+          Integer age = row.get(member.age);
+          columns.add(row.get(member.id), row.get(member.username), age == null ? 0 : age,
+              row.get(team.id), row.get(team.name));
+        }
+      }
+      return columns.build();
+    });
+  }
+
+  /*
+  결과를 List 로 모으지 않고 forward-only 커서(ScrollableResults)로 한 row 씩 넘긴다.
+  DTO 조회라 영속성 컨텍스트에 쌓이는 건 없지만, consumer 쪽에서 엔티티를 건드릴 수 있으니 주기적으로 clear
+   */
+  @Transactional(readOnly = true)
+  public long streamSearch(MemberSearchCondition condition, int fetchSize, int clearInterval,
+      Consumer<MemberTeamDto> consumer) {
+    return metrics.record(REPOSITORY, "streamSearch", condition,
+        () -> stream(condition, fetchSize, clearInterval, consumer));
+  }
+
+  private long stream(MemberSearchCondition condition, int fetchSize, int clearInterval,
+      Consumer<MemberTeamDto> consumer) {
+    long count = 0;
+    try (CloseableIterator<MemberTeamDto> rows = searchQuery(condition)
+        .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+        .setHint(QueryHints.HINT_READONLY, true)
+        .iterate()) {
+      while (rows.hasNext()) {
+        consumer.accept(rows.next());
+        if (++count % clearInterval == 0) {
+          em.clear();
+        }
+      }
+    }
+    return count;
+  }
+
+  private <T> JPAQuery<T> joinTeam(JPAQuery<T> query, String teamName) {
+    return hasText(teamName)   //team.name 조건이 있으면 inner join 과 결과가 같고, 조인 순서를 DB가 고를 수 있다
+        ? query.join(member.team, team)
+        : query.leftJoin(member.team, team);
   }
 
-  private BooleanExpression usernameEq(String username) {
-    return hasText(username) ? member.username.eq(username) : null;
+  private BooleanExpression usernameMatches(MemberSearchCondition condition) {
+    return usernameGramIndex.predicate(condition.getUsername(), condition.usernameMatch());
   }
 
   private BooleanExpression teamNameEq(String teamName) {
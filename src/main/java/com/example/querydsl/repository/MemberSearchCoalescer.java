@@ -0,0 +1,162 @@
+package com.example.querydsl.repository;
+
+import static com.example.querydsl.cache.TableChangeTracker.MEMBER;
+import static com.example.querydsl.cache.TableChangeTracker.TEAM;
+
+import com.example.querydsl.cache.TableChangeTracker;
+import com.example.querydsl.config.DataSourceRouting;
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberTeamColumns;
+import com.example.querydsl.entity.MemberTeamDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/*
+같은 검색(메서드, 정규화된 검색조건, pageable)이 동시에 여러 번 들어오면 먼저 온 요청(leader)만 쿼리를 실행하고
+나머지(follower)는 그 결과를 기다렸다가 같이 받는다 => 인기 팀 페이지에 몰린 요청이 커넥션 풀을 다 쓰지 않는다
+- key 별 CompletableFuture 를 ConcurrentHashMap 에 넣었다 빼는 것뿐이라 다른 key 끼리는 락을 공유하지 않는다
+- 커넥션은 LazyConnectionDataSourceProxy 라 첫 쿼리 때 잡힌다 => 기다리는 follower 는 커넥션을 들고 있지 않다
+- key 에 member/team 테이블 버전을 넣어서 leader 가 시작한 뒤 커밋된 변경이 있으면 합치지 않는다
+- 현재 트랜잭션에 반영 안 된 변경이 있으면 다른 트랜잭션의 결과를 받으면 안 되므로 합치지 않는다
+- leader 결과는 MemberTeamColumns 로 한 번 떠 두고 follower 마다 새 DTO 로 풀어준다 (MemberSearchCache 와 같이, 서로의 응답을 고칠 수 없다)
+- leader 가 replica 에서 읽었으면 follower 도 replica 에서 읽은 것으로 표시한다
+- follower 는 timeout 까지만 기다리고, 넘으면 직접 실행한다 (느린 leader 가 follower 의 요청 스레드/트랜잭션을 계속 잡지 않도록)
+ */
+@Component
+public class MemberSearchCoalescer {
+
+  private final TableChangeTracker tracker;
+  private final MemberSearchCoalescerProperties properties;
+  private final ConcurrentMap<Key, CompletableFuture<Shared>> inFlight = new ConcurrentHashMap<>();
+  private final MeterRegistry registry;
+
+  public MemberSearchCoalescer(TableChangeTracker tracker,
+      MemberSearchCoalescerProperties properties, MeterRegistry registry) {
+    this.tracker = tracker;
+    this.properties = properties;
+    this.registry = registry;
+  }
+
+  public List<MemberTeamDto> list(EntityManager em, String method,
+      MemberSearchCondition condition, Supplier<List<MemberTeamDto>> query) {
+    return execute(em, method, condition, null, query,
+        rows -> new Shared(columns(rows), -1, DataSourceRouting.isReadingReplica()),
+        shared -> shared.content.toDtos());
+  }
+
+  public Page<MemberTeamDto> page(EntityManager em, String method,
+      MemberSearchCondition condition, Pageable pageable, Supplier<Page<MemberTeamDto>> query) {
+    return execute(em, method, condition, pageable, query,
+        page -> new Shared(columns(page.getContent()), page.getTotalElements(),
+            DataSourceRouting.isReadingReplica()),
+        shared -> new PageImpl<>(shared.content.toDtos(), pageable, shared.total));
+  }
+
+  private <T> T execute(EntityManager em, String method, MemberSearchCondition condition,
+      Pageable pageable, Supplier<T> query, Function<T, Shared> share, Function<Shared, T> copy) {
+    if (tracker.hasPendingChanges(em, MEMBER, TEAM)) {
+      return query.get();
+    }
+    Key key = new Key(method, condition.normalize(), pageable, tracker.version(MEMBER, TEAM));
+    CompletableFuture<Shared> mine = new CompletableFuture<>();
+    CompletableFuture<Shared> leader = inFlight.putIfAbsent(key, mine);
+    if (leader != null) {
+      coalesced(method).increment();
+      Shared shared = await(leader, method);
+      if (shared == null) {
+        return query.get();
+      }
+      if (shared.replicaRead) {
+        DataSourceRouting.replicaResultReceived();  //primary 버전으로 표시하는 캐시/ETag 에 넣지 않도록
+      }
+      return copy.apply(shared);
+    }
+
+    try {
+      T result = query.get();
+      mine.complete(share.apply(result));
+      return result;
+    } catch (RuntimeException | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  int inFlight() {
+    return inFlight.size();
+  }
+
+  private Counter coalesced(String method) {
+    return Counter.builder("member.search.coalesced")  //leader 를 기다린 검색 수 (timeout 으로 직접 실행한 건 .timeout)
+        .tag("method", method)
+        .register(registry);
+  }
+
+  /*
+  leader 결과. timeout(혹은 interrupt)이면 null => 호출한 쪽이 직접 실행
+   */
+  private Shared await(CompletableFuture<Shared> leader, String method) {
+    try {
+      return leader.get(properties.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      Counter.builder("member.search.coalesced.timeout")
+          .tag("method", method)
+          .register(registry)
+          .increment();
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static MemberTeamColumns columns(List<MemberTeamDto> rows) {
+    MemberTeamColumns.Builder builder = MemberTeamColumns.builder(rows.size());
+    rows.forEach(builder::add);
+    return builder.build();
+  }
+
+  @EqualsAndHashCode
+  @RequiredArgsConstructor
+  private static class Key {
+
+    private final String method;
+    private final MemberSearchCondition condition;
+    private final Pageable pageable;
+    private final long version;
+  }
+
+  @RequiredArgsConstructor
+  private static class Shared {
+
+    private final MemberTeamColumns content;
+    private final long total;
+    private final boolean replicaRead;
+  }
+}
@@ -0,0 +1,16 @@
+package com.example.querydsl.repository;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("member.search-coalescer")
+public class MemberSearchCoalescerProperties {
+
+  private Duration timeout = Duration.ofSeconds(2);  //follower 가 leader 를 기다리는 한도 (넘으면 직접 실행)
+}
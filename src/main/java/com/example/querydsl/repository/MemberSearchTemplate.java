@@ -0,0 +1,133 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberTeamDto;
+import com.querydsl.jpa.impl.JPAQuery;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+
+/*
+검색조건 shape(어떤 필드가 채워졌는지, 16가지)별로 querydsl 쿼리를 한 번만 만들어 JPQL 문자열로 캐싱하고
+요청마다 파라미터만 바인딩한다 => 매번 하던 표현식 트리 생성 + JPQL 직렬화 생략 (hibernate 쿼리 플랜도 같은 문자열이라 항상 캐시 hit)
+
+querydsl 은 where 절 상수를 등장 순서대로 ?1, ?2 ... 로 직렬화한다.
+컴파일할 때 shape 에 맞춰 서로 다른 placeholder 값을 넣으므로 (같은 값이면 label 이 합쳐진다)
+파라미터 순서는 항상 username, teamName, ageGoe, ageLoe 중 채워진 것 순서
+
+username 부분일치(PREFIX, CONTAINS)는 검색어 길이에 따라 n-gram 조건 모양이 달라지므로 캐싱하지 않고 그대로 실행
+
+saved 지표: shape 당 첫 컴파일은 JIT 전이라 실제 비용보다 훨씬 느리다 => 첫 hit 와 이후 WARM_SAMPLE_INTERVAL 번째 hit 마다
+쿼리를 다시 만들어 재고(compile timer 에도 기록) 그 이동평균(EWMA)을 hit 한 번이 아낀 시간으로 쓴다
+ */
+public class MemberSearchTemplate {
+
+  private static final int SHAPES = 1 << 4;
+  private static final int WARM_SAMPLE_INTERVAL = 1024;
+  private static final double EWMA_WEIGHT = 0.2;
+
+  private final Function<MemberSearchCondition, JPAQuery<MemberTeamDto>> queryBuilder;
+  private final AtomicReferenceArray<CompiledQuery> compiled = new AtomicReferenceArray<>(SHAPES);
+  private final Timer compileTimer;
+  private final Counter hits;
+  private final Counter savedSeconds;
+
+  public MemberSearchTemplate(String name,
+      Function<MemberSearchCondition, JPAQuery<MemberTeamDto>> queryBuilder,
+      MeterRegistry registry) {
+    this.queryBuilder = queryBuilder;
+    this.compileTimer = registry.timer("member.search.template.compile", "query", name);
+    this.hits = registry.counter("member.search.template.hits", "query", name);
+    this.savedSeconds = Counter.builder("member.search.template.saved")
+        .description("querydsl build + JPQL serialization time skipped by reusing templates")
+        .baseUnit("seconds")
+        .tag("query", name)
+        .register(registry);
+  }
+
+  public List<MemberTeamDto> fetch(EntityManager em, MemberSearchCondition condition) {
+    int shape = condition.shape();
+    if (shape >= SHAPES) {
+      return queryBuilder.apply(condition).fetch();
+    }
+
+    TypedQuery<Object[]> query = em.createQuery(template(shape), Object[].class);
+    int position = 0;
+    for (Object parameter : condition.parameters()) {
+      query.setParameter(++position, parameter);
+    }
+
+    List<Object[]> rows = query.getResultList();
+    List<MemberTeamDto> result = new ArrayList<>(rows.size());
+    for (Object[] row : rows) {
+      int age = row[2] == null ? 0 : (Integer) row[2];  //querydsl 생성자 projection 과 동일하게 null -> 0
+      result.add(new MemberTeamDto((Long) row[0], (String) row[1], age, (Long) row[3],
+          (String) row[4]));
+    }
+    return result;
+  }
+
+  private String template(int shape) {
+    CompiledQuery cached = compiled.get(shape);
+    if (cached != null) {
+      hits.increment();
+      long hit = cached.hits.incrementAndGet();
+      if (hit == 1 || hit % WARM_SAMPLE_INTERVAL == 0) {
+        long started = System.nanoTime();
+        compile(shape);
+        cached.sample(System.nanoTime() - started);
+      }
+      savedSeconds.increment(cached.warmNanos / 1_000_000_000.0);
+      return cached.jpql;
+    }
+
+    String jpql = compile(shape);
+    compiled.set(shape, new CompiledQuery(jpql));
+    return jpql;
+  }
+
+  private String compile(int shape) {
+    long started = System.nanoTime();
+    String jpql = queryBuilder.apply(placeholder(shape)).toString();
+    compileTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    return jpql;
+  }
+
+  private static MemberSearchCondition placeholder(int shape) {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    if ((shape & MemberSearchCondition.USERNAME) != 0) {
+      condition.setUsername("username");
+    }
+    if ((shape & MemberSearchCondition.TEAM_NAME) != 0) {
+      condition.setTeamName("teamName");
+    }
+    if ((shape & MemberSearchCondition.AGE_GOE) != 0) {
+      condition.setAgeGoe(0);
+    }
+    if ((shape & MemberSearchCondition.AGE_LOE) != 0) {
+      condition.setAgeLoe(1);
+    }
+    return condition;
+  }
+
+  @RequiredArgsConstructor
+  private static class CompiledQuery {
+
+    private final String jpql;
+    private final AtomicLong hits = new AtomicLong();
+    private volatile double warmNanos;  //첫 hit 전에는 0 => 콜드 컴파일 시간은 saved 에 넣지 않는다
+
+    private void sample(long nanos) {  //동시 갱신이 섞여도 근사치면 충분
+      warmNanos = warmNanos == 0 ? nanos : warmNanos + EWMA_WEIGHT * (nanos - warmNanos);
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package com.example.querydsl.repository;
+
+import static com.example.querydsl.cache.TableChangeTracker.MEMBER;
+import static com.example.querydsl.cache.TableChangeTracker.TEAM;
+
+import com.example.querydsl.cache.TableChangeTracker;
+import com.example.querydsl.config.DataSourceRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import javax.persistence.EntityManager;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+count 쿼리를 별도 스레드의 readOnly 트랜잭션(=새 EntityManager, 새 커넥션)에서 실행한다.
+다른 커넥션은 현재 트랜잭션의 flush 안 된/커밋 안 된 변경을 못 보므로 그런 경우엔 병렬로 돌리지 않는다.
+- 요청 스레드는 트랜잭션이 끝날 때까지 자기 커넥션을 잡고 있으므로, 동시에 도는 병렬 count 수를 maxConcurrent 로 제한
+  (요청이 몰려서 count 마다 커넥션을 기다리다 connectionTimeout 으로 같이 실패하지 않도록 => 허용량이 없으면 순차 실행)
+- 결과는 timeout 까지만 기다리고, 넘으면 요청 스레드에서 다시 count 한다
+ */
+@Component
+public class ParallelCountExecutor implements DisposableBean {
+
+  private final ParallelCountProperties properties;
+  private final TableChangeTracker tracker;
+  private final TransactionTemplate readOnly;
+  private final ThreadPoolExecutor executor;
+  private final Semaphore permits;
+  private final Counter submitted;
+  private final Counter rejected;
+  private final Counter timedOut;
+
+  public ParallelCountExecutor(ParallelCountProperties properties, TableChangeTracker tracker,
+      PlatformTransactionManager transactionManager, MeterRegistry registry) {
+    this.properties = properties;
+    this.tracker = tracker;
+    this.readOnly = new TransactionTemplate(transactionManager);
+    this.readOnly.setReadOnly(true);
+
+    BlockingQueue<Runnable> queue = properties.getQueueCapacity() > 0
+        ? new ArrayBlockingQueue<>(properties.getQueueCapacity())
+        : new SynchronousQueue<>();
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("member-count-");
+    threadFactory.setDaemon(true);
+    this.executor = new ThreadPoolExecutor(properties.getPoolSize(), properties.getPoolSize(),
+        0, TimeUnit.MILLISECONDS, queue, threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    this.permits = new Semaphore(properties.getMaxConcurrent());
+
+    this.submitted = registry.counter("member.count.parallel", "result", "submitted");
+    this.rejected = registry.counter("member.count.parallel", "result", "rejected");
+    this.timedOut = registry.counter("member.count.parallel", "result", "timeout");
+  }
+
+  /*
+  병렬로 시작했으면 결과를 기다리는 ParallelCount, 시작하지 못했으면(꺼짐, 허용량/풀 포화, 미반영 변경) null.
+  countQuery 는 timeout 때 요청 스레드에서 다시 실행할 수 있어야 한다
+   */
+  public ParallelCount submit(EntityManager em, LongSupplier countQuery) {
+    if (!properties.isEnabled() || tracker.hasPendingChanges(em, MEMBER, TEAM)) {
+      return null;
+    }
+    if (!permits.tryAcquire()) {
+      rejected.increment();
+      return null;
+    }
+    //호출한 쪽이 primary 고정이면 count 도 primary 에서, replica 읽기 감시 중이면 count 스레드도 같이
+    Supplier<Long> count = DataSourceRouting.inheritRouting(
+        () -> readOnly.execute(status -> countQuery.getAsLong()));
+    AtomicBoolean claimed = new AtomicBoolean();  //task 와 cancel 중 먼저 잡은 쪽이 permit 을 돌려준다
+    Callable<Long> task = () -> {
+      if (!claimed.compareAndSet(false, true)) {
+        return 0L;  //시작 전에 취소됨
+      }
+      try {
+        return count.get();
+      } finally {
+        permits.release();
+      }
+    };
+    Future<Long> future;
+    try {
+      future = executor.submit(task);
+    } catch (RejectedExecutionException e) {
+      permits.release();
+      rejected.increment();
+      return null;
+    }
+    submitted.increment();
+    return new ParallelCount(future, claimed, countQuery);
+  }
+
+  public class ParallelCount implements LongSupplier {
+
+    private final Future<Long> future;
+    private final AtomicBoolean claimed;
+    private final LongSupplier fallback;
+
+    private ParallelCount(Future<Long> future, AtomicBoolean claimed, LongSupplier fallback) {
+      this.future = future;
+      this.claimed = claimed;
+      this.fallback = fallback;
+    }
+
+    @Override
+    public long getAsLong() {
+      try {
+        return future.get(properties.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+      } catch (TimeoutException e) {
+        timedOut.increment();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new IllegalStateException(e.getCause());
+      }
+      cancel();
+      return fallback.getAsLong();
+    }
+
+    /*
+    count 가 필요 없어졌을 때 (PageableExecutionUtils 가 건너뜀, content 쿼리 실패). 아직 시작 전이면 실행하지 않고,
+    이미 도는 중이면 커넥션 상태를 건드리지 않도록 interrupt 없이 끝나게 둔다
+     */
+    public void cancel() {
+      if (claimed.compareAndSet(false, true)) {
+        permits.release();
+      }
+      future.cancel(false);
+    }
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,25 @@
+package com.example.querydsl.repository;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/*
+searchPageComplex 의 count 쿼리를 content 쿼리와 동시에 실행하는 스레드풀.
+poolSize 개가 모두 사용 중이고 queueCapacity 도 차 있으면 순차 실행으로 돌아간다.
+병렬 count 는 요청 스레드의 커넥션과 별개로 같은 Hikari 풀에서 커넥션을 하나 더 쓰므로 maxConcurrent 는 풀 크기보다 충분히 작게
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("member.parallel-count")
+public class ParallelCountProperties {
+
+  private boolean enabled = true;
+  private int poolSize = 4;
+  private int queueCapacity = 0;
+  private int maxConcurrent = 2;                     //동시에 병렬로 도는 count 수 (넘으면 순차 실행)
+  private Duration timeout = Duration.ofSeconds(2);  //병렬 count 대기 한도 (넘으면 요청 스레드에서 다시 count)
+}
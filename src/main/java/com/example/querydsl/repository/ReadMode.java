@@ -0,0 +1,11 @@
+package com.example.querydsl.repository;
+
+/*
+엔티티 조회 모드
+MANAGED   : 기본. 영속성 컨텍스트에 올라가고 dirty checking 용 스냅샷을 가진다
+READ_ONLY : 영속성 컨텍스트에는 올라가지만 스냅샷을 만들지 않고 flush 대상에서 빠진다 (변경해도 반영 안 됨), 조회 전 auto flush 도 생략
+STATELESS : StatelessSession 으로 조회 => 영속성 컨텍스트, 2차 캐시 모두 거치지 않는 detached 엔티티. team 은 fetch join 으로 같이 읽는다
+ */
+public enum ReadMode {
+  MANAGED, READ_ONLY, STATELESS
+}
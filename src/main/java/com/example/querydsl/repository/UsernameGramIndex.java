@@ -0,0 +1,305 @@
+package com.example.querydsl.repository;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QMemberUsernameGram.memberUsernameGram;
+import static org.springframework.util.StringUtils.hasText;
+
+import com.example.querydsl.cache.MemberBulkWriteDetector;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.MemberSearchCondition.UsernameMatch;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.JPQLQuery;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+username 부분일치 검색. like '%x%' 는 인덱스를 못 타서 member 전체를 스캔하므로
+username 의 trigram 을 member_username_gram 에 따로 두고 (gram, member_id) 인덱스로 후보를 좁힌 뒤 like 로 다시 확인한다.
+- 뒤에 PAD 두 글자를 붙여서 자르므로 1 ~ 2 글자 검색어도 gram like 'x%' 로 인덱스 범위 검색이 된다
+- Member insert/update(username 변경)/delete 이벤트에서 같은 트랜잭션 안에 JDBC 로 바로 반영 => 트랜잭션 안의 검색에도 보인다
+- 엔티티 이벤트 없이 member 의 username 이 바뀌면(벌크연산, native 쿼리) stale 표시 후 커밋되면 별도 스레드에서 다시 만든다.
+  다시 만들기 전까지는 like 스캔으로 검색 (결과는 항상 같다)
+ */
+@Slf4j
+@Component
+public class UsernameGramIndex implements PostInsertEventListener, PostUpdateEventListener,
+    PostDeleteEventListener, DisposableBean {
+
+  public static final int GRAM = 3;
+  private static final char PAD = '\u0001';
+
+  private static final String INSERT =
+      "insert into member_username_gram (member_id, gram) values (?, ?)";
+  private static final String DELETE = "delete from member_username_gram where member_id = ?";
+  private static final String DELETE_ALL = "delete from member_username_gram";
+  private static final String SELECT_MEMBERS = "select member_id, username from member"
+      + " where username is not null";
+  private static final String EMPTY = "select (select count(*) from member_username_gram) = 0"
+      + " and exists (select 1 from member where username is not null)";
+  private static final int REBUILD_BATCH_SIZE = 1000;
+
+  private final EntityManager em;
+  private final TransactionTemplate rebuildTransaction;
+  private final ExecutorService rebuilder;
+
+  private final AtomicLong bulkVersion = new AtomicLong();
+  private final AtomicLong rebuiltVersion = new AtomicLong();
+
+  public UsernameGramIndex(EntityManager em, PlatformTransactionManager transactionManager,
+      MemberBulkWriteDetector bulkWriteDetector) {
+    this.em = em;
+    this.rebuildTransaction = new TransactionTemplate(transactionManager);
+    this.rebuildTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("username-gram-");
+    threadFactory.setDaemon(true);
+    this.rebuilder = Executors.newSingleThreadExecutor(threadFactory);
+    bulkWriteDetector.addListener(sql -> {
+      if (changesUsername(sql)) {
+        markStale();
+      }
+    });
+  }
+
+  public BooleanExpression predicate(String username, UsernameMatch match) {
+    if (!hasText(username)) {
+      return null;
+    }
+    switch (match == null ? UsernameMatch.EXACT : match) {
+      case PREFIX:
+        return member.username.startsWith(username);  //like 'x%' => idx_member_username 범위 검색
+      case CONTAINS:
+        return contains(username);
+      default:
+        return member.username.eq(username);
+    }
+  }
+
+  public boolean isFresh() {
+    return bulkVersion.get() == rebuiltVersion.get();
+  }
+
+  private BooleanExpression contains(String term) {
+    BooleanExpression like = member.username.contains(term);
+    if (!isFresh()) {
+      return like;
+    }
+    JPQLQuery<Long> candidates;
+    if (term.length() < GRAM) {
+      candidates = JPAExpressions.select(memberUsernameGram.memberId)
+          .from(memberUsernameGram)
+          .where(memberUsernameGram.gram.startsWith(term));
+    } else {
+      Set<String> grams = grams(term, false);
+      candidates = JPAExpressions.select(memberUsernameGram.memberId)
+          .from(memberUsernameGram)
+          .where(memberUsernameGram.gram.in(grams))
+          .groupBy(memberUsernameGram.memberId)
+          .having(memberUsernameGram.gram.countDistinct().eq((long) grams.size()));
+    }
+    return member.id.in(candidates).and(like);  //trigram 이 다 있어도 순서가 다를 수 있으니 like 로 확인
+  }
+
+  static Set<String> grams(String value, boolean padded) {
+    String text = padded ? value + PAD + PAD : value;
+    Set<String> grams = new LinkedHashSet<>();
+    for (int i = 0; i + GRAM <= text.length(); i++) {
+      grams.add(text.substring(i, i + GRAM));
+    }
+    return grams;
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    if (event.getEntity() instanceof Member) {
+      Member inserted = (Member) event.getEntity();
+      write(event.getSession(), (Long) event.getId(), false, inserted.getUsername());
+    }
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    if (!(event.getEntity() instanceof Member)) {
+      return;
+    }
+    int usernameIndex = event.getPersister().getEntityMetamodel().getPropertyIndex("username");
+    String username = (String) event.getState()[usernameIndex];
+    if (event.getOldState() != null) {
+      String oldUsername = (String) event.getOldState()[usernameIndex];
+      if (oldUsername == null ? username == null : oldUsername.equals(username)) {
+        return;
+      }
+    }
+    write(event.getSession(), (Long) event.getId(), true, username);
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    if (event.getEntity() instanceof Member) {
+      write(event.getSession(), (Long) event.getId(), true, null);
+    }
+  }
+
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return false;
+  }
+
+  private void write(EventSource session, Long memberId, boolean deleteOld, String username) {
+    session.doWork(connection -> {
+      if (deleteOld) {
+        try (PreparedStatement statement = connection.prepareStatement(DELETE)) {
+          statement.setLong(1, memberId);
+          statement.executeUpdate();
+        }
+      }
+      if (username != null) {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+          addBatch(insert, memberId, username);
+          insert.executeBatch();
+        }
+      }
+    });
+  }
+
+  private static void addBatch(PreparedStatement insert, long memberId, String username)
+      throws SQLException {
+    for (String gram : grams(username, true)) {
+      insert.setLong(1, memberId);
+      insert.setString(2, gram);
+      insert.addBatch();
+    }
+  }
+
+  /*
+  기존 데이터가 있는 DB 에 처음 붙었을 때(ddl-auto update/none) 색인이 비어 있으면 한 번 만든다
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildIfEmpty() {
+    rebuilder.execute(() -> {
+      try {
+        Boolean empty = rebuildTransaction.execute(status -> em.unwrap(Session.class)
+            .doReturningWork(connection -> {
+              try (Statement statement = connection.createStatement();
+                  ResultSet rs = statement.executeQuery(EMPTY)) {
+                return rs.next() && rs.getBoolean(1);
+              }
+            }));
+        if (Boolean.TRUE.equals(empty)) {
+          markStale();
+        }
+      } catch (RuntimeException e) {
+        log.warn("username gram index check failed", e);
+      }
+    });
+  }
+
+  /*
+  member 전체에서 다시 만든다. 새 트랜잭션에서 실행하고 커밋된 뒤에 fresh 로 표시
+   */
+  public void rebuild() {
+    long version = bulkVersion.get();
+    if (version == rebuiltVersion.get()) {
+      return;
+    }
+    rebuildTransaction.executeWithoutResult(status -> em.unwrap(Session.class)
+        .doWork(this::rebuild));
+    rebuiltVersion.accumulateAndGet(version, Math::max);
+    log.info("username gram index rebuilt (version {})", version);
+  }
+
+  private void rebuild(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate(DELETE_ALL);
+    }
+    try (Statement select = connection.createStatement();
+        ResultSet rs = select.executeQuery(SELECT_MEMBERS);
+        PreparedStatement insert = connection.prepareStatement(INSERT)) {
+      int rows = 0;
+      while (rs.next()) {
+        addBatch(insert, rs.getLong(1), rs.getString(2));
+        if (++rows % REBUILD_BATCH_SIZE == 0) {
+          insert.executeBatch();
+        }
+      }
+      insert.executeBatch();
+    }
+  }
+
+  /*
+  TableChangeTracker 와 같은 이유로 statement 시점과 트랜잭션 종료 시점에 한 번씩 올리고, 종료 후에 다시 만든다
+   */
+  private void markStale() {
+    bulkVersion.incrementAndGet();
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      scheduleRebuild();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronizationAdapter() {
+          @Override
+          public void afterCompletion(int status) {
+            bulkVersion.incrementAndGet();
+            scheduleRebuild();
+          }
+        });
+  }
+
+  private void scheduleRebuild() {
+    rebuilder.execute(() -> {
+      try {
+        rebuild();
+      } catch (RuntimeException e) {
+        log.warn("username gram index rebuild failed, contains search falls back to scan", e);
+      }
+    });
+  }
+
+  /*
+  delete 는 남은 gram 이 member 조인에서 걸러지므로 다시 만들 필요 없음
+   */
+  private static boolean changesUsername(String sql) {
+    String lower = sql.trim().toLowerCase(Locale.ROOT);
+    if (lower.startsWith("delete")) {
+      return false;
+    }
+    return !lower.startsWith("update") || lower.contains("username");
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    rebuilder.shutdownNow();
+    rebuilder.awaitTermination(5, TimeUnit.SECONDS);
+  }
+}
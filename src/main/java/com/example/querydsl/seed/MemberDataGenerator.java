@@ -0,0 +1,99 @@
+package com.example.querydsl.seed;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.repository.MemberJpaRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+운영과 비슷한 규모의 데이터 생성기.
+팀을 먼저 만들고, 회원은 chunkSize 단위로 나눠서 chunk 마다 별도 트랜잭션으로 병렬 insert (jdbc batch)
+chunk 마다 시작 번호로 시드를 정해서 같은 설정이면 같은 데이터가 나온다
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberDataGenerator {
+
+  private final EntityManager em;
+  private final MemberJpaRepository memberJpaRepository;
+  private final PlatformTransactionManager transactionManager;
+
+  public void generate(MemberSeedProperties properties) {
+    long started = System.currentTimeMillis();
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+    List<Long> teamIds = transactionTemplate.execute(status -> createTeams(properties.getTeams()));
+    ZipfDistribution teamDistribution = new ZipfDistribution(teamIds.size(), properties.getTeamSkew());
+    ZipfDistribution ageDistribution = new ZipfDistribution(
+        properties.getAgeMax() - properties.getAgeMin() + 1, properties.getAgeSkew());
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()));
+    try {
+      List<Future<?>> chunks = new ArrayList<>();
+      for (long start = 0; start < properties.getMembers(); start += properties.getChunkSize()) {
+        long from = start;
+        long to = Math.min(start + properties.getChunkSize(), properties.getMembers());
+        chunks.add(executor.submit(() -> transactionTemplate.execute(status -> {
+          insertMembers(from, to, teamIds, teamDistribution, ageDistribution, properties);
+          return null;
+        })));
+      }
+      for (Future<?> chunk : chunks) {
+        chunk.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("member generation interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("member generation failed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    log.info("generated {} teams, {} members in {} ms", teamIds.size(), properties.getMembers(),
+        System.currentTimeMillis() - started);
+  }
+
+  private List<Long> createTeams(int count) {
+    List<Team> teams = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Team team = new Team("team" + i);
+      em.persist(team);
+      teams.add(team);
+    }
+    em.flush();
+
+    List<Long> teamIds = new ArrayList<>(count);
+    for (Team team : teams) {
+      teamIds.add(team.getId());
+    }
+    em.clear();
+    return teamIds;
+  }
+
+  private void insertMembers(long from, long to, List<Long> teamIds,
+      ZipfDistribution teamDistribution, ZipfDistribution ageDistribution,
+      MemberSeedProperties properties) {
+    SplittableRandom random = new SplittableRandom(properties.getRandomSeed() + from);
+    List<Member> members = new ArrayList<>((int) (to - from));
+    for (long i = from; i < to; i++) {
+      Team team = em.getReference(Team.class, teamIds.get(teamDistribution.sample(random)));
+      int age = properties.getAgeMin() + ageDistribution.sample(random);
+      members.add(new Member("member" + i, age, team));
+    }
+    memberJpaRepository.saveAll(members);
+  }
+}
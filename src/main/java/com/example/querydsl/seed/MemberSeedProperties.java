@@ -0,0 +1,26 @@
+package com.example.querydsl.seed;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/*
+skew 는 zipf 지수 (0 이면 균등분포, 1 근처면 앞쪽 팀/나이에 몰림)
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("member.seed")
+public class MemberSeedProperties {
+
+  private int teams = 2;
+  private long members = 100;
+  private double teamSkew = 0.0;
+  private int ageMin = 0;
+  private int ageMax = 99;
+  private double ageSkew = 0.0;
+  private int chunkSize = 10_000;
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+  private long randomSeed = 42;
+}
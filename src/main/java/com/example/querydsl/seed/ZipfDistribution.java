@@ -0,0 +1,33 @@
+package com.example.querydsl.seed;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+0 ~ size-1 의 rank 를 1/(rank+1)^exponent 비율로 뽑는다. 누적분포를 미리 만들어두고 이진탐색
+ */
+public class ZipfDistribution {
+
+  private final double[] cumulative;
+
+  public ZipfDistribution(int size, double exponent) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("size must be positive: " + size);
+    }
+    cumulative = new double[size];
+    double sum = 0;
+    for (int rank = 0; rank < size; rank++) {
+      sum += 1.0 / Math.pow(rank + 1, exponent);
+      cumulative[rank] = sum;
+    }
+    for (int rank = 0; rank < size; rank++) {
+      cumulative[rank] /= sum;
+    }
+  }
+
+  public int sample(SplittableRandom random) {
+    int index = Arrays.binarySearch(cumulative, random.nextDouble());
+    int rank = index >= 0 ? index : -index - 1;
+    return Math.min(rank, cumulative.length - 1);
+  }
+}
@@ -0,0 +1,297 @@
+package com.example.querydsl.snapshot;
+
+import static org.springframework.util.StringUtils.hasText;
+
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberSearchCondition.UsernameMatch;
+import com.example.querydsl.entity.MemberTeamDto;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+member 를 컬럼별 primitive 배열로 들고 있는 읽기 모델. 같은 row 번호끼리 한 회원
+- team, username 은 dictionary 인코딩 (int 코드), 나이 null 은 NULL_AGE, 삭제된 row 는 id 를 DELETED 로
+- 검색은 컬럼 하나씩 selection vector(살아남은 row 번호 int[])를 줄여가며 스캔하고 마지막에 남은 row 만 MemberTeamDto 로 만든다
+- thread-safe 하지 않음. MemberSnapshotStore 가 lock 을 잡고 호출
+ */
+class MemberSnapshot {
+
+  static final int NULL_AGE = Integer.MIN_VALUE;
+  private static final int NONE = -1;
+  private static final long DELETED = 0;
+
+  private long[] ids;
+  private int[] ages;
+  private int[] teams;
+  private int[] usernames;
+  private int rows;
+  private int deletedRows;
+  private final IdIndex rowById;
+
+  private long[] teamIds = new long[16];
+  private String[] teamNames = new String[16];
+  private int teamCount;
+  private final IdIndex teamById = new IdIndex(16);
+
+  private String[] usernameValues = new String[16];
+  private int usernameCount;
+  private final Map<String, Integer> usernameCodes = new HashMap<>();
+
+  MemberSnapshot(int capacity) {
+    int initial = Math.max(16, capacity);
+    ids = new long[initial];
+    ages = new int[initial];
+    teams = new int[initial];
+    usernames = new int[initial];
+    rowById = new IdIndex(initial);
+  }
+
+  void putTeam(long id, String name) {
+    int team = teamById.get(id);
+    if (team == NONE) {
+      if (teamCount == teamIds.length) {
+        teamIds = Arrays.copyOf(teamIds, teamCount * 2);
+        teamNames = Arrays.copyOf(teamNames, teamCount * 2);
+      }
+      team = teamCount++;
+      teamIds[team] = id;
+      teamById.put(id, team);
+    }
+    teamNames[team] = name;
+  }
+
+  /*
+  insert / update 둘 다. 모르는 팀이면 false (호출한 쪽에서 다시 만들어야 함)
+   */
+  boolean putMember(long id, String username, Integer age, Long teamId) {
+    int team = NONE;
+    if (teamId != null) {
+      team = teamById.get(teamId);
+      if (team == NONE) {
+        return false;
+      }
+    }
+    int row = rowById.get(id);
+    if (row == NONE) {
+      if (rows == ids.length) {
+        grow();
+      }
+      row = rows++;
+      rowById.put(id, row);
+    } else if (ids[row] == DELETED) {
+      deletedRows--;
+    }
+    ids[row] = id;
+    ages[row] = age == null ? NULL_AGE : age;
+    teams[row] = team;
+    usernames[row] = usernameCode(username);
+    return true;
+  }
+
+  void removeMember(long id) {
+    int row = rowById.get(id);
+    if (row != NONE && ids[row] != DELETED) {
+      ids[row] = DELETED;
+      deletedRows++;
+    }
+  }
+
+  int size() {
+    return rows - deletedRows;
+  }
+
+  int deletedRows() {
+    return deletedRows;
+  }
+
+  List<MemberTeamDto> search(MemberSearchCondition condition) {
+    int[] selection = new int[rows];
+    int selected = 0;
+    for (int row = 0; row < rows; row++) {
+      if (ids[row] != DELETED) {
+        selection[selected++] = row;
+      }
+    }
+
+    if (condition.getAgeGoe() != null) {
+      selected = ageGoe(selection, selected, condition.getAgeGoe());
+    }
+    if (condition.getAgeLoe() != null) {
+      selected = ageLoe(selection, selected, condition.getAgeLoe());
+    }
+    if (hasText(condition.getTeamName()) && selected > 0) {
+      selected = codeIn(teams, selection, selected, teamMatches(condition.getTeamName()));
+    }
+    if (hasText(condition.getUsername()) && selected > 0) {
+      selected = codeIn(usernames, selection, selected,
+          usernameMatches(condition.getUsername(), condition.usernameMatch()));
+    }
+
+    List<MemberTeamDto> result = new ArrayList<>(selected);
+    for (int i = 0; i < selected; i++) {
+      int row = selection[i];
+      int team = teams[row];
+      int username = usernames[row];
+      result.add(new MemberTeamDto(ids[row],
+          username == NONE ? null : usernameValues[username],
+          ages[row] == NULL_AGE ? 0 : ages[row],  //querydsl 생성자 projection 과 동일하게 null -> 0
+          team == NONE ? null : teamIds[team],
+          team == NONE ? null : teamNames[team]));
+    }
+    return result;
+  }
+
+  private int ageGoe(int[] selection, int selected, int min) {
+    int out = 0;
+    for (int i = 0; i < selected; i++) {
+      int row = selection[i];
+      int age = ages[row];
+      if (age != NULL_AGE && age >= min) {
+        selection[out++] = row;
+      }
+    }
+    return out;
+  }
+
+  private int ageLoe(int[] selection, int selected, int max) {
+    int out = 0;
+    for (int i = 0; i < selected; i++) {
+      int row = selection[i];
+      int age = ages[row];
+      if (age != NULL_AGE && age <= max) {
+        selection[out++] = row;
+      }
+    }
+    return out;
+  }
+
+  /*
+  문자열 비교는 dictionary(서로 다른 값 수)만큼만 하고, row 스캔은 코드로 boolean[] 조회
+   */
+  private static int codeIn(int[] column, int[] selection, int selected, boolean[] matches) {
+    int out = 0;
+    for (int i = 0; i < selected; i++) {
+      int row = selection[i];
+      int code = column[row];
+      if (code != NONE && matches[code]) {
+        selection[out++] = row;
+      }
+    }
+    return out;
+  }
+
+  private boolean[] teamMatches(String teamName) {
+    boolean[] matches = new boolean[teamCount];
+    for (int team = 0; team < teamCount; team++) {
+      matches[team] = teamName.equals(teamNames[team]);
+    }
+    return matches;
+  }
+
+  private boolean[] usernameMatches(String username, UsernameMatch match) {
+    boolean[] matches = new boolean[usernameCount];
+    if (match == UsernameMatch.EXACT) {
+      Integer code = usernameCodes.get(username);
+      if (code != null) {
+        matches[code] = true;
+      }
+      return matches;
+    }
+    for (int code = 0; code < usernameCount; code++) {
+      String value = usernameValues[code];
+      matches[code] = match == UsernameMatch.PREFIX
+          ? value.startsWith(username)
+          : value.contains(username);
+    }
+    return matches;
+  }
+
+  private int usernameCode(String username) {
+    if (username == null) {
+      return NONE;
+    }
+    Integer code = usernameCodes.get(username);
+    if (code != null) {
+      return code;
+    }
+    if (usernameCount == usernameValues.length) {
+      usernameValues = Arrays.copyOf(usernameValues, usernameCount * 2);
+    }
+    usernameValues[usernameCount] = username;
+    usernameCodes.put(username, usernameCount);
+    return usernameCount++;
+  }
+
+  private void grow() {
+    int capacity = ids.length * 2;
+    ids = Arrays.copyOf(ids, capacity);
+    ages = Arrays.copyOf(ages, capacity);
+    teams = Arrays.copyOf(teams, capacity);
+    usernames = Arrays.copyOf(usernames, capacity);
+  }
+
+  /*
+  id -> row 번호. Long / Integer 박싱 없이 open addressing (id 는 항상 양수라 0 을 빈 칸으로 사용)
+   */
+  private static class IdIndex {
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    IdIndex(int expected) {
+      int capacity = Integer.highestOneBit(Math.max(16, expected) * 2 - 1) << 1;
+      keys = new long[capacity];
+      values = new int[capacity];
+    }
+
+    int get(long id) {
+      int mask = keys.length - 1;
+      for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+        if (keys[slot] == id) {
+          return values[slot];
+        }
+        if (keys[slot] == 0) {
+          return NONE;
+        }
+      }
+    }
+
+    void put(long id, int value) {
+      if ((size + 1) * 2 > keys.length) {
+        rehash(keys.length * 2);
+      }
+      int mask = keys.length - 1;
+      int slot = hash(id) & mask;
+      while (keys[slot] != 0 && keys[slot] != id) {
+        slot = (slot + 1) & mask;
+      }
+      if (keys[slot] == 0) {
+        size++;
+      }
+      keys[slot] = id;
+      values[slot] = value;
+    }
+
+    private void rehash(int capacity) {
+      long[] oldKeys = keys;
+      int[] oldValues = values;
+      keys = new long[capacity];
+      values = new int[capacity];
+      size = 0;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != 0) {
+          put(oldKeys[i], oldValues[i]);
+        }
+      }
+    }
+
+    private static int hash(long id) {
+      long h = id * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32));
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.example.querydsl.snapshot;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("member.snapshot")
+public class MemberSnapshotProperties {
+
+  private boolean enabled = false;
+  private int loadFetchSize = 10_000;
+}
@@ -0,0 +1,343 @@
+package com.example.querydsl.snapshot;
+
+import com.example.querydsl.cache.MemberBulkWriteDetector;
+import com.example.querydsl.cache.TableChangeTracker;
+import com.example.querydsl.config.DataSourceRouting;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberTeamDto;
+import com.example.querydsl.entity.Team;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+MemberSnapshot 을 들고 있으면서 DB 와 맞춘다.
+- Member / Team 엔티티 이벤트로 바뀐 내용을 세션에 모아두고 커밋된 뒤에만 반영 => 커밋 안 된 변경은 안 보인다
+- 벌크연산, native 쿼리로 member / team 이 바뀌면 stale. 트랜잭션이 끝나면 별도 스레드에서 DB 에서 통째로 다시 읽는다
+- 읽는 동안 커밋된 변경은 모아뒀다가 읽기가 끝나면 다시 적용 (upsert / delete 라 두 번 적용돼도 결과가 같다)
+search 는 꺼져 있거나 stale 이면 null => 호출한 쪽에서 DB 로 조회
+ */
+@Slf4j
+@Component
+public class MemberSnapshotStore implements PostInsertEventListener, PostUpdateEventListener,
+    PostDeleteEventListener, DisposableBean {
+
+  private static final String SELECT_TEAMS = "select id, name from team";
+  private static final String SELECT_MEMBERS =
+      "select member_id, username, age, team_id from member order by member_id";
+
+  private final MemberSnapshotProperties properties;
+  private final EntityManager em;
+  private final TransactionTemplate readOnly;
+  private final ExecutorService loader;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final ConcurrentMap<SessionImplementor, List<Change>> pending = new ConcurrentHashMap<>();
+
+  private final AtomicLong bulkVersion = new AtomicLong();
+  private volatile long loadedVersion = -1;
+  private MemberSnapshot snapshot;
+  private List<Change> replay;  //다시 읽는 중에만 null 이 아님
+
+  private final Counter hits;
+  private final Counter fallbacks;
+
+  public MemberSnapshotStore(MemberSnapshotProperties properties, EntityManager em,
+      PlatformTransactionManager transactionManager, MemberBulkWriteDetector bulkWriteDetector,
+      MeterRegistry registry) {
+    this.properties = properties;
+    this.em = em;
+    this.readOnly = new TransactionTemplate(transactionManager);
+    this.readOnly.setReadOnly(true);
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("member-snapshot-");
+    threadFactory.setDaemon(true);
+    this.loader = Executors.newSingleThreadExecutor(threadFactory);
+
+    bulkWriteDetector.addListener(TableChangeTracker.MEMBER, sql -> markStale());
+    bulkWriteDetector.addListener(TableChangeTracker.TEAM, sql -> markStale());
+
+    this.hits = registry.counter("member.snapshot.search", "result", "hit");
+    this.fallbacks = registry.counter("member.snapshot.search", "result", "fallback");
+    Gauge.builder("member.snapshot.rows", this, MemberSnapshotStore::size).register(registry);
+  }
+
+  public List<MemberTeamDto> search(MemberSearchCondition condition) {
+    if (!isFresh()) {
+      fallbacks.increment();
+      return null;
+    }
+    lock.readLock().lock();
+    try {
+      List<MemberTeamDto> result = snapshot.search(condition);
+      hits.increment();
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public boolean isFresh() {
+    return properties.isEnabled() && loadedVersion == bulkVersion.get();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void loadOnStartup() {
+    if (properties.isEnabled()) {
+      scheduleReload();
+    }
+  }
+
+  /*
+  DB 에서 다시 읽는다. 읽기 시작 시점 버전으로 표시하므로 읽는 동안 벌크연산이 있었으면 여전히 stale
+   */
+  public void reload() {
+    long version = bulkVersion.get();
+    lock.writeLock().lock();
+    try {
+      replay = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    MemberSnapshot loaded;
+    try {
+      loaded = DataSourceRouting.onPrimary(() -> readOnly.execute(status -> load()));
+    } catch (RuntimeException e) {
+      clearReplay();
+      throw e;
+    }
+
+    lock.writeLock().lock();
+    try {
+      for (Change change : replay) {
+        if (!change.applyTo(loaded)) {
+          replay = null;
+          scheduleReload();  //읽은 뒤에 생긴 팀을 모르는 경우 => stale 로 남기고 다시 읽는다
+          return;
+        }
+      }
+      replay = null;
+      snapshot = loaded;
+      loadedVersion = version;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.info("member snapshot loaded: {} rows (version {})", loaded.size(), version);
+  }
+
+  private MemberSnapshot load() {
+    return em.unwrap(Session.class).doReturningWork(connection -> {
+      MemberSnapshot loaded;
+      try (Statement statement = connection.createStatement()) {
+        ResultSet rs = statement.executeQuery("select count(*) from member");
+        rs.next();
+        loaded = new MemberSnapshot(rs.getInt(1));
+        rs = statement.executeQuery(SELECT_TEAMS);
+        while (rs.next()) {
+          loaded.putTeam(rs.getLong(1), rs.getString(2));
+        }
+      }
+      try (PreparedStatement statement = connection.prepareStatement(SELECT_MEMBERS)) {
+        statement.setFetchSize(properties.getLoadFetchSize());
+        try (ResultSet rs = statement.executeQuery()) {
+          while (rs.next()) {
+            long teamId = rs.getLong(4);
+            Long team = rs.wasNull() ? null : teamId;
+            int age = rs.getInt(3);
+            loaded.putMember(rs.getLong(1), rs.getString(2), rs.wasNull() ? null : age, team);
+          }
+        }
+      }
+      return loaded;
+    });
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    onSaved(event.getSession(), event.getEntity());
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    onSaved(event.getSession(), event.getEntity());
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    if (properties.isEnabled() && event.getEntity() instanceof Member) {
+      long id = (Long) event.getId();
+      add(event.getSession(), snapshot -> {
+        snapshot.removeMember(id);
+        return true;
+      });
+    }
+  }
+
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return false;
+  }
+
+  private void onSaved(EventSource session, Object entity) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    if (entity instanceof Member) {
+      Member member = (Member) entity;
+      long id = member.getId();
+      String username = member.getUsername();
+      Integer age = member.getAge();
+      Long teamId = teamId(member.getTeam());
+      add(session, snapshot -> snapshot.putMember(id, username, age, teamId));
+    } else if (entity instanceof Team) {
+      long id = ((Team) entity).getId();
+      String name = ((Team) entity).getName();
+      add(session, snapshot -> {
+        snapshot.putTeam(id, name);
+        return true;
+      });
+    }
+  }
+
+  private void add(EventSource session, Change change) {
+    pending.computeIfAbsent(session, s -> {
+      s.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> {
+        List<Change> changes = pending.remove(s);
+        if (success && changes != null) {
+          apply(changes);
+        }
+      });
+      return new ArrayList<>();
+    }).add(change);
+  }
+
+  private void apply(List<Change> changes) {
+    lock.writeLock().lock();
+    try {
+      if (replay != null) {
+        replay.addAll(changes);
+      }
+      if (snapshot == null) {
+        return;
+      }
+      for (Change change : changes) {
+        if (!change.applyTo(snapshot)) {
+          bulkVersion.incrementAndGet();  //이미 트랜잭션 종료 후라 바로 다시 읽는다
+          scheduleReload();
+          return;
+        }
+      }
+      if (snapshot.deletedRows() > snapshot.size()) {  //삭제된 row 가 더 많아지면 다시 읽어서 압축
+        scheduleReload();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /*
+  TableChangeTracker 와 같은 이유로 statement 시점과 트랜잭션 종료 시점에 한 번씩 올리고, 종료 후에 다시 읽는다
+   */
+  private void markStale() {
+    bulkVersion.incrementAndGet();
+    if (!properties.isEnabled()) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      scheduleReload();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronizationAdapter() {
+          @Override
+          public void afterCompletion(int status) {
+            bulkVersion.incrementAndGet();
+            scheduleReload();
+          }
+        });
+  }
+
+  private void scheduleReload() {
+    loader.execute(() -> {
+      try {
+        reload();
+      } catch (RuntimeException e) {
+        log.warn("member snapshot reload failed, searches fall back to the database", e);
+      }
+    });
+  }
+
+  private void clearReplay() {
+    lock.writeLock().lock();
+    try {
+      replay = null;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private double size() {
+    lock.readLock().lock();
+    try {
+      return snapshot == null ? 0 : snapshot.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private static Long teamId(Team team) {
+    if (team == null) {
+      return null;
+    }
+    if (team instanceof HibernateProxy) {
+      return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+    }
+    return team.getId();
+  }
+
+  @Override
+  public void destroy() {
+    loader.shutdownNow();
+  }
+
+  @FunctionalInterface
+  private interface Change {
+
+    boolean applyTo(MemberSnapshot snapshot);
+  }
+}
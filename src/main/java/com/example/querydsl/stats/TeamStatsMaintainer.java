@@ -0,0 +1,313 @@
+package com.example.querydsl.stats;
+
+import com.example.querydsl.cache.MemberBulkWriteDetector;
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.persistence.EntityManager;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.event.spi.PreDeleteEvent;
+import org.hibernate.event.spi.PreDeleteEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+team_age_stats 증분 유지.
+- Member insert/update(나이, 팀 변경)/delete 이벤트에서 (team_id, age) 별 증감을 세션에 모아두고
+  커밋 직전(flush 이후)에 같은 트랜잭션 안에서 JDBC MERGE 로 반영 => 롤백되면 통계도 같이 롤백
+- 엔티티 이벤트 없이 member 를 바꾸는 SQL (querydsl update/delete 같은 벌크연산, native 쿼리)은
+  MemberBulkWriteDetector 가 알려주면 stale 표시 후 트랜잭션이 끝나면 별도 스레드에서 member 테이블로 통째로 다시 만든다.
+  시작할 때도 한 번 다시 만든다 (기존 DB 에 붙으면 통계가 member 와 다를 수 있음)
+- 조회 쪽은 isFresh() 가 아니면 member group by 로 응답 => 조회 요청은 쓰기도, 다시 만들기도 하지 않는다
+ */
+@Slf4j
+@Component
+public class TeamStatsMaintainer implements PreDeleteEventListener, PostInsertEventListener,
+    PostUpdateEventListener, DisposableBean {
+
+  /*
+  unique 제약에서 null 끼리는 중복이 아니므로 age 가 null 인 행도 (team_id, age_key) 로 하나만 생기도록 age_key 에 대신 넣는 값
+   */
+  private static final int NULL_AGE_KEY = Integer.MIN_VALUE;
+
+  private static final String MERGE = "merge into team_age_stats t"
+      + " using (select cast(? as bigint) team_id, cast(? as int) age, cast(? as int) age_key,"
+      + " cast(? as bigint) delta) s"
+      + " on t.team_id = s.team_id and t.age_key = s.age_key"
+      + " when matched then update set member_count = t.member_count + s.delta"
+      + " when not matched then insert (team_id, age, age_key, member_count)"
+      + " values (s.team_id, s.age, s.age_key, s.delta)";
+  private static final String DUPLICATE_KEY = "23505";
+  private static final String DELETE_EMPTY = "delete from team_age_stats where member_count = 0";
+  private static final String DELETE_ALL = "delete from team_age_stats";
+  private static final String REBUILD =
+      "insert into team_age_stats (team_id, age, age_key, member_count) select team_id, age, coalesce(age, " + NULL_AGE_KEY + "), count(*)"
+      + " from member where team_id is not null group by team_id, age";
+
+  private final ConcurrentMap<SessionImplementor, Map<Key, Long>> pending = new ConcurrentHashMap<>();
+
+  private final EntityManager em;
+  private final TransactionTemplate rebuildTransaction;
+  private final ExecutorService rebuilder;
+
+  private final AtomicLong bulkVersion = new AtomicLong();
+  private final AtomicLong rebuiltVersion = new AtomicLong(-1);  //시작 시 다시 만들기 전까지 stale
+  private final AtomicLong committedDeltas = new AtomicLong();
+
+  public TeamStatsMaintainer(EntityManager em, PlatformTransactionManager transactionManager,
+      MemberBulkWriteDetector bulkWriteDetector) {
+    this.em = em;
+    this.rebuildTransaction = new TransactionTemplate(transactionManager);
+    this.rebuildTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("team-stats-");
+    threadFactory.setDaemon(true);
+    this.rebuilder = Executors.newSingleThreadExecutor(threadFactory);
+    bulkWriteDetector.addListener(sql -> markStale());
+  }
+
+  public boolean isFresh() {
+    return bulkVersion.get() == rebuiltVersion.get();
+  }
+
+  /*
+  삭제는 같은 flush 에서 update 가 생략될 수 있어서 현재 값이 아닌 DB 에 있는 값(loadedState) 기준으로 뺀다
+   */
+  @Override
+  public boolean onPreDelete(PreDeleteEvent event) {
+    if (!(event.getEntity() instanceof Member)) {
+      return false;
+    }
+    EntityEntry entry = event.getSession().getPersistenceContext().getEntry(event.getEntity());
+    Object[] state = entry != null && entry.getLoadedState() != null
+        ? entry.getLoadedState() : event.getDeletedState();
+    EntityPersister persister = event.getPersister();
+    add(event.getSession(), teamId(state[persister.getEntityMetamodel().getPropertyIndex("team")]),
+        (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")], -1);
+    return false;
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    if (event.getEntity() instanceof Member) {
+      Member member = (Member) event.getEntity();
+      add(event.getSession(), teamId(member.getTeam()), member.getAge(), 1);
+    }
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    if (!(event.getEntity() instanceof Member)) {
+      return;
+    }
+    if (event.getOldState() == null) {
+      markStale();
+      return;
+    }
+    EntityPersister persister = event.getPersister();
+    int teamIndex = persister.getEntityMetamodel().getPropertyIndex("team");
+    int ageIndex = persister.getEntityMetamodel().getPropertyIndex("age");
+    add(event.getSession(), teamId(event.getOldState()[teamIndex]),
+        (Integer) event.getOldState()[ageIndex], -1);
+    add(event.getSession(), teamId(event.getState()[teamIndex]),
+        (Integer) event.getState()[ageIndex], 1);
+  }
+
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return false;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuildOnStartup() {
+    scheduleRebuild();
+  }
+
+  /*
+  member 전체에서 다시 만든다. 새 트랜잭션에서 실행하고 커밋된 뒤에 fresh 로 표시
+  - 락 안에서 버전을 다시 확인하므로 여러 번 요청돼도 같은 버전으로는 한 번만 만든다
+  - 다시 만드는 동안 다른 트랜잭션이 커밋한 증분은 중복되거나 빠질 수 있다 => fresh 로 표시하지 않고 한 번 더 만든다
+   */
+  public synchronized void rebuild() {
+    long version = bulkVersion.get();
+    if (version == rebuiltVersion.get()) {
+      return;
+    }
+    long deltas = committedDeltas.get();
+    rebuildTransaction.executeWithoutResult(status -> em.unwrap(Session.class)
+        .doWork(connection -> {
+          try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(DELETE_ALL);
+            statement.executeUpdate(REBUILD);
+          }
+        }));
+    if (committedDeltas.get() != deltas) {
+      scheduleRebuild();
+      return;
+    }
+    rebuiltVersion.accumulateAndGet(version, Math::max);
+    log.info("team stats rebuilt (version {})", version);
+  }
+
+  private void add(EventSource session, Long teamId, Integer age, long delta) {
+    if (teamId == null) {
+      return;
+    }
+    Map<Key, Long> deltas = pending.computeIfAbsent(session, s -> {
+      s.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::applyPending);
+      s.getActionQueue().registerProcess(
+          (AfterTransactionCompletionProcess) (success, completed) -> {
+            pending.remove(s);
+            if (success) {
+              committedDeltas.incrementAndGet();
+            }
+          });
+      return new HashMap<>();
+    });
+    deltas.merge(new Key(teamId, age), delta, Long::sum);
+  }
+
+  private void applyPending(SessionImplementor session) {
+    Map<Key, Long> deltas = pending.get(session);
+    if (deltas == null || deltas.isEmpty()) {
+      return;
+    }
+    Map<Key, Long> applying = new HashMap<>(deltas);
+    deltas.clear();
+    session.doWork(connection -> write(connection, applying));
+  }
+
+  private void write(Connection connection, Map<Key, Long> deltas) throws SQLException {
+    boolean decreased = false;
+    try (PreparedStatement merge = connection.prepareStatement(MERGE)) {
+      for (Map.Entry<Key, Long> entry : deltas.entrySet()) {
+        Key key = entry.getKey();
+        long delta = entry.getValue();
+        if (delta == 0) {
+          continue;
+        }
+        decreased |= delta < 0;
+        merge.setLong(1, key.teamId);
+        setAge(merge, 2, key.age);
+        merge.setInt(3, key.age == null ? NULL_AGE_KEY : key.age);
+        merge.setLong(4, delta);
+        merge(merge);
+      }
+    }
+    if (decreased) {
+      try (Statement statement = connection.createStatement()) {
+        statement.executeUpdate(DELETE_EMPTY);
+      }
+    }
+  }
+
+  /*
+  같은 (team_id, age) 의 첫 행을 두 트랜잭션이 동시에 insert 하면 늦은 쪽은 unique 제약에 걸린다
+  => 먼저 커밋된 행이 이제 보이므로 한 번 더 실행하면 update 로 들어간다
+   */
+  private static void merge(PreparedStatement merge) throws SQLException {
+    try {
+      merge.executeUpdate();
+    } catch (SQLException e) {
+      if (!DUPLICATE_KEY.equals(e.getSQLState())) {
+        throw e;
+      }
+      merge.executeUpdate();
+    }
+  }
+
+  private static void setAge(PreparedStatement statement, int index, Integer age)
+      throws SQLException {
+    if (age == null) {
+      statement.setNull(index, Types.INTEGER);
+    } else {
+      statement.setInt(index, age);
+    }
+  }
+
+  /*
+  TableChangeTracker 와 같은 이유로 statement 시점과 트랜잭션 종료 시점에 한 번씩 올리고, 종료 후에 다시 만든다
+   */
+  private void markStale() {
+    bulkVersion.incrementAndGet();
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      scheduleRebuild();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronizationAdapter() {
+          @Override
+          public void afterCompletion(int status) {
+            bulkVersion.incrementAndGet();
+            scheduleRebuild();
+          }
+        });
+  }
+
+  private void scheduleRebuild() {
+    rebuilder.execute(() -> {
+      try {
+        rebuild();
+      } catch (RuntimeException e) {
+        log.warn("team stats rebuild failed, stats are served from member group by", e);
+      }
+    });
+  }
+
+  private static Long teamId(Object team) {
+    if (team == null) {
+      return null;
+    }
+    if (team instanceof HibernateProxy) {
+      return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+    }
+    return ((Team) team).getId();
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    rebuilder.shutdownNow();
+    rebuilder.awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  @EqualsAndHashCode
+  @RequiredArgsConstructor
+  private static class Key {
+
+    private final Long teamId;
+    private final Integer age;
+  }
+}
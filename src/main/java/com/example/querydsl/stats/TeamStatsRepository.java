@@ -0,0 +1,86 @@
+package com.example.querydsl.stats;
+
+import static com.example.querydsl.cache.TableChangeTracker.MEMBER;
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static com.example.querydsl.entity.QTeamAgeStats.teamAgeStats;
+
+import com.example.querydsl.cache.TableChangeTracker;
+import com.example.querydsl.entity.QTeamStatsDto;
+import com.example.querydsl.entity.TeamStatsDto;
+import com.querydsl.core.types.dsl.CaseBuilder;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+팀 통계. member 를 group by 하지 않고 team_age_stats (팀 수 x 나이 종류 만큼의 행)만 읽는다
+- 벌크연산 후 다시 만들어지기 전(stale)이거나, 현재 트랜잭션에 아직 통계에 반영 안 된 member 변경이 있으면
+  member group by 로 같은 값을 구한다 (읽기만 한다)
+ */
+@Repository
+public class TeamStatsRepository {
+
+  private final EntityManager em;
+  private final JPAQueryFactory queryFactory;
+  private final TeamStatsMaintainer maintainer;
+  private final TableChangeTracker tracker;
+  private final Counter rollupReads;
+  private final Counter memberReads;
+
+  public TeamStatsRepository(EntityManager em, TeamStatsMaintainer maintainer,
+      TableChangeTracker tracker, MeterRegistry registry) {
+    this.em = em;
+    this.queryFactory = new JPAQueryFactory(em);
+    this.maintainer = maintainer;
+    this.tracker = tracker;
+    this.rollupReads = registry.counter("team.stats.read", "source", "rollup");
+    this.memberReads = registry.counter("team.stats.read", "source", "member");
+  }
+
+  @Transactional(readOnly = true)
+  public List<TeamStatsDto> findAll() {
+    if (!maintainer.isFresh() || tracker.hasPendingChanges(em, MEMBER)) {
+      memberReads.increment();
+      return findAllFromMembers();
+    }
+    rollupReads.increment();
+    return queryFactory
+        .select(new QTeamStatsDto(
+            team.name,
+            teamAgeStats.memberCount.sum(),
+            teamAgeStats.memberCount.multiply(teamAgeStats.age).sum(),
+            new CaseBuilder()
+                .when(teamAgeStats.age.isNotNull()).then(teamAgeStats.memberCount)
+                .otherwise(Expressions.numberTemplate(Long.class, "0"))
+                .sum(),
+            teamAgeStats.age.max(),
+            teamAgeStats.age.min()))
+        .from(teamAgeStats)
+        .join(team).on(team.id.eq(teamAgeStats.teamId))
+        .groupBy(team.id, team.name)
+        .orderBy(team.name.asc())
+        .fetch();
+  }
+
+  List<TeamStatsDto> findAllFromMembers() {
+    return queryFactory
+        .select(new QTeamStatsDto(
+            team.name,
+            member.count(),
+            Expressions.numberTemplate(Long.class, "sum({0})", member.age),
+            member.age.count(),
+            member.age.max(),
+            member.age.min()))
+        .from(member)
+        .join(member.team, team)
+        .groupBy(team.id, team.name)
+        .orderBy(team.name.asc())
+        .fetch();
+  }
+}
@@ -0,0 +1,60 @@
+package com.example.querydsl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.Team;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional
+@SpringBootTest
+class MemberExportServiceTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  MemberExportService exportService;
+
+  @Test
+  void ndjsonRows() throws Exception {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.flush();
+
+    String body = export(new MemberSearchCondition());
+
+    assertThat(body.split("\n", -1)).hasSize(3);
+    assertThat(body).endsWith("}\n");
+  }
+
+  @Test
+  void emptyNdjsonHasNoBlankLine() throws Exception {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("noSuchTeam");
+
+    assertThat(export(condition)).isEmpty();
+  }
+
+  @Test
+  void clearIntervalMustBePositive() {
+    assertThatThrownBy(() -> new MemberExportProperties().setClearInterval(0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private String export(MemberSearchCondition condition) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    exportService.export(condition, ExportFormat.NDJSON, out);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
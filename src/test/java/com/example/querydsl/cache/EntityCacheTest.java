@@ -0,0 +1,67 @@
+package com.example.querydsl.cache;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import javax.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional
+@SpringBootTest
+class EntityCacheTest {
+
+  @Autowired
+  EntityManager em;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void before() {
+    statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void teamIsServedFromSecondLevelCache() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    em.persist(new Member("member1", 10, teamA));
+    em.flush();
+    em.clear();
+
+    em.find(Team.class, teamA.getId());
+    em.clear();
+    Team cached = em.find(Team.class, teamA.getId());
+
+    assertThat(cached.getName()).isEqualTo("teamA");
+    assertThat(statistics.getDomainDataRegionStatistics(EntityCacheProperties.TEAM).getHitCount())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void bulkUpdateEvictsCachedMembers() {
+    Member member1 = new Member("member1", 10);
+    em.persist(member1);
+    em.flush();
+    em.clear();
+    em.find(Member.class, member1.getId());
+
+    new JPAQueryFactory(em)
+        .update(member)
+        .set(member.age, 20)
+        .where(member.id.eq(member1.getId()))
+        .execute();
+    em.clear();
+
+    assertThat(em.find(Member.class, member1.getId()).getAge()).isEqualTo(20);
+  }
+}
@@ -0,0 +1,47 @@
+package com.example.querydsl.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.querydsl.entity.MemberSearchCondition;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class MemberCountCacheTest {
+
+  private final TableChangeTracker tracker = new TableChangeTracker();
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private final MemberCountCache countCache =
+      new MemberCountCache(tracker, new MemberCountCacheProperties(), registry);
+
+  @Test
+  void normalizedConditionHitsCache() {
+    AtomicInteger executed = new AtomicInteger();
+    MemberSearchCondition empty = new MemberSearchCondition();
+    MemberSearchCondition blank = new MemberSearchCondition();
+    blank.setUsername(" ");
+
+    long first = countCache.count(null, empty, () -> executed.incrementAndGet() * 10L);
+    long second = countCache.count(null, blank, () -> executed.incrementAndGet() * 10L);
+
+    assertThat(first).isEqualTo(10);
+    assertThat(second).isEqualTo(10);
+    assertThat(executed).hasValue(1);
+    assertThat(registry.counter("member.count.cache", "result", "hit").count()).isEqualTo(1);
+  }
+
+  @Test
+  void bulkUpdateInvalidates() {
+    AtomicInteger executed = new AtomicInteger();
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamA");
+
+    countCache.count(null, condition, executed::incrementAndGet);
+    tracker.inspect("update member set username=? where age<?");
+    long recounted = countCache.count(null, condition, executed::incrementAndGet);
+
+    assertThat(recounted).isEqualTo(2);
+    assertThat(registry.counter("member.count.cache", "result", "miss").count()).isEqualTo(2);
+  }
+}
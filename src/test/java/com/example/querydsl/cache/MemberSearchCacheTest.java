@@ -0,0 +1,93 @@
+package com.example.querydsl.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberTeamDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+class MemberSearchCacheTest {
+
+  private final TableChangeTracker tracker = new TableChangeTracker();
+  private final MeterRegistry registry = new SimpleMeterRegistry();
+  private final MemberSearchCache searchCache =
+      new MemberSearchCache(tracker, new MemberSearchCacheProperties(), registry);
+
+  @Test
+  void hitReturnsEqualCopy() {
+    AtomicInteger executed = new AtomicInteger();
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamA");
+
+    List<MemberTeamDto> first = searchCache.list(null, "search", condition, () -> rows(executed));
+    List<MemberTeamDto> second = searchCache.list(null, "search", condition, () -> rows(executed));
+
+    assertThat(executed).hasValue(1);
+    assertThat(second).usingFieldByFieldElementComparator().isEqualTo(first);
+    assertThat(second.get(0)).isNotSameAs(first.get(0));
+    assertThat(second.get(1).getTeamId()).isNull();
+    assertThat(registry.get("member.search.cache.memory").gauge().value()).isPositive();
+  }
+
+  @Test
+  void pageKeepsTotalAndPageable() {
+    AtomicInteger executed = new AtomicInteger();
+    MemberSearchCondition condition = new MemberSearchCondition();
+    Pageable pageable = PageRequest.of(1, 2);
+
+    searchCache.page(null, "searchPageSimple", condition, pageable,
+        () -> new PageImpl<>(rows(executed), pageable, 10));
+    Page<MemberTeamDto> cached = searchCache.page(null, "searchPageSimple", condition, pageable,
+        () -> new PageImpl<>(rows(executed), pageable, 10));
+    searchCache.page(null, "searchPageSimple", condition, PageRequest.of(2, 2),
+        () -> new PageImpl<>(rows(executed), pageable, 10));
+
+    assertThat(cached.getTotalElements()).isEqualTo(10);
+    assertThat(cached.getNumber()).isEqualTo(1);
+    assertThat(cached.getContent()).hasSize(2);
+    assertThat(executed).hasValue(2);
+  }
+
+  @Test
+  void bulkUpdateInvalidates() {
+    AtomicInteger executed = new AtomicInteger();
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    searchCache.list(null, "search", condition, () -> rows(executed));
+    tracker.inspect("update team set name=? where team_id=?");
+    searchCache.list(null, "search", condition, () -> rows(executed));
+
+    assertThat(executed).hasValue(2);
+  }
+
+  @Test
+  void skipsResultLargerThanMaximumRows() {
+    MemberSearchCacheProperties properties = new MemberSearchCacheProperties();
+    properties.setMaximumRows(2);
+    MeterRegistry registry = new SimpleMeterRegistry();
+    MemberSearchCache searchCache = new MemberSearchCache(tracker, properties, registry);
+    AtomicInteger executed = new AtomicInteger();
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    searchCache.list(null, "search", condition, () -> rows(executed));
+    searchCache.list(null, "search", condition, () -> rows(executed));
+
+    assertThat(executed).hasValue(2);
+    assertThat(registry.get("member.search.cache.memory").gauge().value()).isZero();
+  }
+
+  private static List<MemberTeamDto> rows(AtomicInteger executed) {
+    executed.incrementAndGet();
+    return List.of(
+        new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+        new MemberTeamDto(2L, "member2", 20, null, null));
+  }
+}
@@ -0,0 +1,77 @@
+package com.example.querydsl.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberSearchETagTest {
+
+  @Autowired
+  MockMvc mockMvc;
+
+  @Autowired
+  EntityManager em;
+
+  @Test
+  void notModifiedUntilMembersChange() throws Exception {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    em.persist(new Member("member1", 10, teamA));
+    em.flush();
+
+    String etag = mockMvc.perform(get("/v3/members").param("teamName", "teamA"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    assertThat(etag).isNotNull();
+
+    mockMvc.perform(get("/v3/members").param("teamName", "teamA")
+        .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+
+    //조건이 다르면 다른 ETag
+    mockMvc.perform(get("/v3/members").param("teamName", "teamB")
+        .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk());
+    mockMvc.perform(get("/v2/members").param("teamName", "teamA").param("size", "5")
+        .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk());
+
+    em.persist(new Member("member2", 20, teamA));
+    em.flush();
+
+    mockMvc.perform(get("/v3/members").param("teamName", "teamA")
+        .header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void bulkUpdateChangesETag() throws Exception {
+    em.persist(new Member("member1", 10));
+    em.flush();
+
+    String etag = mockMvc.perform(get("/v2/members"))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    em.createQuery("update Member m set m.age = m.age + 1").executeUpdate();
+
+    mockMvc.perform(get("/v2/members").header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isOk());
+  }
+}
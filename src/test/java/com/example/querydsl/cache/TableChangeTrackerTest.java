@@ -0,0 +1,32 @@
+package com.example.querydsl.cache;
+
+import static com.example.querydsl.cache.TableChangeTracker.MEMBER;
+import static com.example.querydsl.cache.TableChangeTracker.TEAM;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class TableChangeTrackerTest {
+
+  private final TableChangeTracker tracker = new TableChangeTracker();
+
+  @Test
+  void writeStatementsBumpVersion() {
+    long before = tracker.version(MEMBER);
+
+    tracker.inspect("insert into member (age, team_id, username, member_id) values (?, ?, ?, ?)");
+    tracker.inspect("update member set username=? where age<?");
+    tracker.inspect("/* delete com.example.querydsl.entity.Member */ delete from PUBLIC.MEMBER where age>?");
+
+    assertThat(tracker.version(MEMBER)).isEqualTo(before + 3);
+    assertThat(tracker.version(TEAM)).isZero();
+  }
+
+  @Test
+  void selectDoesNotBumpVersion() {
+    tracker.inspect("select member0_.member_id as col_0_0_ from member member0_ where member0_.username=?");
+    tracker.inspect("select count(member0_.member_id) from member member0_ left outer join team team1_ on member0_.team_id=team1_.id");
+
+    assertThat(tracker.version(MEMBER, TEAM)).isZero();
+  }
+}
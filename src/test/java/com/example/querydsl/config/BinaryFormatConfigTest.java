@@ -0,0 +1,92 @@
+package com.example.querydsl.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional
+@SpringBootTest
+@AutoConfigureMockMvc
+class BinaryFormatConfigTest {
+
+  static final String SMILE = "application/x-jackson-smile";
+  static final String CBOR = "application/cbor";
+
+  @Autowired
+  MockMvc mockMvc;
+
+  @Autowired
+  EntityManager em;
+
+  @BeforeEach
+  void before() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    for (int i = 0; i < 30; i++) {
+      em.persist(new Member("member" + i, i, teamA));
+    }
+    em.flush();
+  }
+
+  @Test
+  void jsonPageIsUnchanged() throws Exception {
+    JsonNode page = new ObjectMapper().readTree(
+        fetch("/v3/members?size=10", MediaType.APPLICATION_JSON_VALUE).getResponse()
+            .getContentAsByteArray());
+
+    assertThat(page.has("pageable")).isTrue();
+    assertThat(page.get("content")).hasSize(10);
+  }
+
+  @Test
+  void smileSlimPage() throws Exception {
+    MvcResult result = fetch("/v3/members?size=10", SMILE);
+    assertThat(result.getResponse().getContentType()).startsWith(SMILE);
+
+    JsonNode page = new ObjectMapper(new SmileFactory())
+        .readTree(result.getResponse().getContentAsByteArray());
+
+    assertThat(page.get("content")).hasSize(10);
+    assertThat(page.get("content").get(0).get("teamName").asText()).isEqualTo("teamA");
+    assertThat(page.get("page").asInt()).isEqualTo(0);
+    assertThat(page.get("size").asInt()).isEqualTo(10);
+    assertThat(page.get("totalElements").asLong()).isEqualTo(30);
+    assertThat(page.get("totalPages").asInt()).isEqualTo(3);
+    assertThat(page.has("pageable")).isFalse();
+  }
+
+  @Test
+  void binaryIsSmallerThanJson() throws Exception {
+    int json = fetch("/v1/members", MediaType.APPLICATION_JSON_VALUE).getResponse()
+        .getContentAsByteArray().length;
+    byte[] smile = fetch("/v1/members", SMILE).getResponse().getContentAsByteArray();
+    byte[] cbor = fetch("/v1/members", CBOR).getResponse().getContentAsByteArray();
+
+    assertThat(smile.length).isLessThan(json);
+    assertThat(cbor.length).isLessThan(json);
+    assertThat(new ObjectMapper(new CBORFactory()).readTree(cbor)).hasSize(30);
+  }
+
+  private MvcResult fetch(String url, String accept) throws Exception {
+    return mockMvc.perform(get(url).accept(accept))
+        .andExpect(status().isOk())
+        .andReturn();
+  }
+}
@@ -0,0 +1,180 @@
+package com.example.querydsl.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.querydsl.cache.MemberCountCache;
+import com.example.querydsl.cache.MemberCountCacheProperties;
+import com.example.querydsl.cache.TableChangeTracker;
+import com.example.querydsl.config.ReplicaDataSourceProperties.Selection;
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+import javax.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+in-memory H2 (primary, replica1, replica2)에 각자 이름을 넣어두고 어느 쪽으로 라우팅됐는지 확인
+ */
+class ReplicaRoutingDataSourceTest {
+
+  private ReplicaRoutingDataSource routing;
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate readWrite;
+  private TransactionTemplate readOnly;
+
+  private void setUp(Selection selection) {
+    routing = new ReplicaRoutingDataSource(pool("primary"),
+        List.of(pool("replica1"), pool("replica2")), selection);
+    LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+    DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    readWrite = new TransactionTemplate(transactionManager);
+    readOnly = new TransactionTemplate(transactionManager);
+    readOnly.setReadOnly(true);
+  }
+
+  private static HikariDataSource pool(String name) {
+    HikariConfig config = new HikariConfig();
+    config.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+    config.setUsername("sa");
+    config.setMaximumPoolSize(2);
+    HikariDataSource dataSource = new HikariDataSource(config);
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    jdbcTemplate.execute("create table if not exists node (name varchar(20))");
+    jdbcTemplate.execute("delete from node");
+    jdbcTemplate.update("insert into node values (?)", name);
+    return dataSource;
+  }
+
+  @AfterEach
+  void after() {
+    routing.close();
+  }
+
+  private String node() {
+    return jdbcTemplate.queryForObject("select name from node", String.class);
+  }
+
+  @Test
+  void readOnlyTransactionGoesToReplica() {
+    setUp(Selection.ROUND_ROBIN);
+
+    assertThat(readOnly.execute(status -> node())).startsWith("replica");
+    assertThat(readWrite.execute(status -> node())).isEqualTo("primary");
+    assertThat(node()).isEqualTo("primary");
+  }
+
+  @Test
+  void roundRobinAlternatesReplicas() {
+    setUp(Selection.ROUND_ROBIN);
+
+    String first = readOnly.execute(status -> node());
+    String second = readOnly.execute(status -> node());
+
+    assertThat(List.of(first, second)).containsExactlyInAnyOrder("replica1", "replica2");
+  }
+
+  @Test
+  void leastBusyPicksIdleReplica() {
+    setUp(Selection.LEAST_BUSY);
+
+    //이 트랜잭션이 replica 커넥션을 잡고 있는 동안 다른 스레드의 요청은 나머지 replica 로
+    readOnly.execute(status -> {
+      String busy = node();
+      assertThat(otherThreadNode()).startsWith("replica").isNotEqualTo(busy);
+      return busy;
+    });
+  }
+
+  @Test
+  void forcedPrimaryWinsOverReadOnly() {
+    setUp(Selection.ROUND_ROBIN);
+
+    String node = DataSourceRouting.onPrimary(() -> readOnly.execute(status -> node()));
+
+    assertThat(node).isEqualTo("primary");
+  }
+
+  @Test
+  void replicaConnectionIsVisibleUntilTransactionEnds() {
+    setUp(Selection.ROUND_ROBIN);
+
+    readOnly.execute(status -> {
+      assertThat(DataSourceRouting.isReadingReplica()).isFalse();  //아직 커넥션을 안 얻었다
+      node();
+      assertThat(DataSourceRouting.isReadingReplica()).isTrue();
+      return null;
+    });
+    assertThat(DataSourceRouting.isReadingReplica()).isFalse();
+    readWrite.execute(status -> {
+      node();
+      assertThat(DataSourceRouting.isReadingReplica()).isFalse();
+      return null;
+    });
+  }
+
+  @Test
+  void replicaReadIsVisibleAfterTransactionEnds() {
+    setUp(Selection.ROUND_ROBIN);
+
+    boolean[] replicaRead = new boolean[1];
+    DataSourceRouting.watchReplicaReads(replicaRead, () -> readOnly.execute(status -> node()));
+    assertThat(replicaRead[0]).isTrue();
+
+    boolean[] primaryRead = new boolean[1];
+    DataSourceRouting.watchReplicaReads(primaryRead, () -> readWrite.execute(status -> node()));
+    assertThat(primaryRead[0]).isFalse();
+  }
+
+  /*
+  캐시 miss 는 라우팅된 커넥션에서 읽고, replica 에서 읽은 값은 캐시에 넣지 않는다
+   */
+  @Test
+  void countCacheSkipsReplicaResults() {
+    setUp(Selection.ROUND_ROBIN);
+    MemberCountCache countCache = new MemberCountCache(new TableChangeTracker(),
+        new MemberCountCacheProperties(), new SimpleMeterRegistry());
+    EntityManager em = mock(EntityManager.class);
+    when(em.unwrap(Session.class)).thenReturn(mock(Session.class));
+    MemberSearchCondition condition = new MemberSearchCondition();
+    List<String> loads = new ArrayList<>();
+    LongSupplier countQuery = () -> {
+      loads.add(node());
+      return 1;
+    };
+
+    readOnly.execute(status -> countCache.count(em, condition, countQuery));
+    readOnly.execute(status -> countCache.count(em, condition, countQuery));
+    assertThat(loads).hasSize(2).allMatch(node -> node.startsWith("replica"));
+
+    readWrite.execute(status -> countCache.count(em, condition, countQuery));
+    readOnly.execute(status -> countCache.count(em, condition, countQuery));
+    assertThat(loads).hasSize(3);
+    assertThat(loads.get(2)).isEqualTo("primary");
+  }
+
+  private String otherThreadNode() {
+    String[] result = new String[1];
+    Thread thread = new Thread(() -> result[0] = readOnly.execute(status -> node()));
+    thread.start();
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return result[0];
+  }
+}
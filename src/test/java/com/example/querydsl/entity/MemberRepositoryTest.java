@@ -3,6 +3,7 @@ package com.example.querydsl.entity;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.util.ArrayList;
 import java.util.List;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
@@ -10,6 +11,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
 
 @Transactional
@@ -95,6 +97,85 @@ class MemberRepositoryTest {
     assertThat(result.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
   }
 
+  @Test
+  void searchSlice() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 30, teamA));
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamA");
+
+    Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 2));
+    assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2");
+    assertThat(first.hasNext()).isTrue();
+
+    Slice<MemberTeamDto> last = memberRepository.searchSlice(condition, PageRequest.of(1, 2));
+    assertThat(last.getContent()).extracting("username").containsExactly("member3");
+    assertThat(last.hasNext()).isFalse();
+  }
+
+  @Test
+  void searchByCursor() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+
+    em.persist(new Member("member1", 40, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 20, teamB));
+    em.persist(new Member("member4", 10, teamB));
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    MemberCursorPage first = memberRepository
+        .searchByCursor(condition, MemberCursor.first(MemberCursor.SortKey.AGE), 2);
+    assertThat(first.getContent()).extracting("username").containsExactly("member4", "member2");
+    assertThat(first.isHasNext()).isTrue();
+
+    MemberCursorPage second = memberRepository
+        .searchByCursor(condition, MemberCursor.decode(first.getNextCursor()), 2);
+    assertThat(second.getContent()).extracting("username").containsExactly("member3", "member1");
+    assertThat(second.isHasNext()).isFalse();
+    assertThat(second.getNextCursor()).isNull();
+  }
+
+  @Test
+  void searchByCursorAcrossNullAges() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    em.persist(new Member("null1", null, teamA));
+    em.persist(new Member("null2", null, teamA));
+    em.persist(new Member("null3", null, teamA));
+    em.persist(new Member("zero1", 0, teamA));
+    em.persist(new Member("zero2", 0, teamA));
+    em.persist(new Member("ten1", 10, teamA));
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    List<String> usernames = new ArrayList<>();
+    MemberCursor cursor = MemberCursor.first(MemberCursor.SortKey.AGE);
+    while (true) {
+      MemberCursorPage page = memberRepository.searchByCursor(condition, cursor, 2);
+      page.getContent().forEach(dto -> usernames.add(dto.getUsername()));
+      if (page.getNextCursor() == null) {
+        break;
+      }
+      cursor = MemberCursor.decode(page.getNextCursor());
+    }
+
+    //page 경계가 null 구간 안(null2 | null3)과 0 구간 안(zero1 | zero2)에 걸린다
+    assertThat(usernames).containsExactly("null1", "null2", "null3", "zero1", "zero2", "ten1");
+  }
+
+  @Test
+  void decodeInvalidCursor() {
+    assertThatThrownBy(() -> MemberCursor.decode("not-a-cursor"))
+        .isInstanceOf(InvalidCursorException.class);
+  }
 
   /*
   실무에서는 QuerydslPredicateExecutor 사용 권장하지 않음
@@ -0,0 +1,117 @@
+package com.example.querydsl.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+검색조건 조합(username / teamName / ageGoe / ageLoe 4개 => 조건 없는 경우 제외 15가지)마다
+repository 가 만드는 쿼리를 SQL 로 번역해서 H2 EXPLAIN 으로 실행계획 확인 => full scan(tableScan) 이 없어야 한다
+ */
+@Transactional
+@SpringBootTest
+class MemberSearchIndexTest {
+
+  private static final int USERNAME = 1;
+  private static final int TEAM_NAME = 1 << 1;
+  private static final int AGE_GOE = 1 << 2;
+  private static final int AGE_LOE = 1 << 3;
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  MemberRepositoryImpl memberRepositoryImpl;
+
+  @BeforeEach
+  void before() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+    for (int i = 0; i < 20; i++) {
+      em.persist(new Member("member" + i, i * 5, i % 2 == 0 ? teamA : teamB));
+    }
+    em.flush();
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15})
+  void everyConditionShapeUsesIndex(int shape) {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    List<Object> params = new ArrayList<>();
+    if ((shape & USERNAME) != 0) {
+      condition.setUsername("member3");
+      params.add("member3");
+    }
+    if ((shape & TEAM_NAME) != 0) {
+      condition.setTeamName("teamB");
+      params.add("teamB");
+    }
+    if ((shape & AGE_GOE) != 0) {
+      condition.setAgeGoe(80);
+      params.add(80);
+    }
+    if ((shape & AGE_LOE) != 0) {
+      condition.setAgeLoe(90);
+      params.add(90);
+    }
+
+    String plan = explain(toSql(memberRepositoryImpl.selectMemberTeamDto(condition).toString()), params);
+
+    assertThat(plan).as("shape = %d, plan = %s", shape, plan).doesNotContainIgnoringCase("tableScan");
+    assertThat(plan).as("shape = %d, plan = %s", shape, plan).containsIgnoringCase("IDX_");
+  }
+
+  /*
+  age 커서의 다음 페이지 조건이 (age, member_id) 인덱스 범위 seek 으로 실행되는지
+   */
+  @Test
+  void ageCursorSeeksIndex() {
+    MemberCursor cursor = MemberCursor.after(MemberCursor.SortKey.AGE, 50, 10L);
+    String plan = explain(toSql(memberRepositoryImpl
+        .selectByCursor(new MemberSearchCondition(), cursor).toString()), List.of(50, 50, 10L));
+
+    assertThat(plan).as(plan).doesNotContainIgnoringCase("tableScan");
+    assertThat(plan).as(plan)
+        .containsPattern(Pattern.compile("IDX_MEMBER_AGE\\w*\"?: \"?AGE\"? >=",
+            Pattern.CASE_INSENSITIVE));
+  }
+
+  private String toSql(String jpql) {
+    SessionFactoryImplementor sessionFactory = em.getEntityManagerFactory()
+        .unwrap(SessionFactoryImplementor.class);
+    return sessionFactory.getQueryPlanCache()
+        .getHQLQueryPlan(jpql, false, Collections.emptyMap())
+        .getSqlStrings()[0];
+  }
+
+  private String explain(String sql, List<Object> params) {
+    return em.unwrap(Session.class).doReturningWork(connection -> {
+      try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+        for (int i = 0; i < params.size(); i++) {
+          statement.setObject(i + 1, params.get(i));
+        }
+        try (ResultSet resultSet = statement.executeQuery()) {
+          resultSet.next();
+          return resultSet.getString(1);
+        }
+      }
+    });
+  }
+}
@@ -0,0 +1,46 @@
+package com.example.querydsl.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MemberTeamColumnsTest {
+
+  ObjectMapper objectMapper = new ObjectMapper();
+
+  List<MemberTeamDto> dtos = List.of(
+      new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+      new MemberTeamDto(2L, "member2", 20, 2L, "teamB"),
+      new MemberTeamDto(3L, "member3", 30, 1L, "teamA"),
+      new MemberTeamDto(4L, null, 0, null, null));
+
+  @Test
+  void rows() {
+    MemberTeamColumns columns = columns(1);
+
+    assertThat(columns.size()).isEqualTo(4);
+    assertThat(columns.get(2)).isEqualTo(dtos.get(2));
+    List<MemberTeamDto> rows = new ArrayList<>();
+    for (MemberTeamColumns.Row row : columns) {
+      rows.add(row.toDto());
+    }
+    assertThat(rows).isEqualTo(dtos);
+  }
+
+  @Test
+  void jsonIsSameAsDtoList() throws Exception {
+    assertThat(objectMapper.writeValueAsString(columns(16)))
+        .isEqualTo(objectMapper.writeValueAsString(dtos));
+    assertThat(objectMapper.writeValueAsString(MemberTeamColumns.builder(0).build()))
+        .isEqualTo("[]");
+  }
+
+  private MemberTeamColumns columns(int expectedSize) {
+    MemberTeamColumns.Builder builder = MemberTeamColumns.builder(expectedSize);
+    dtos.forEach(builder::add);
+    return builder.build();
+  }
+}
@@ -0,0 +1,107 @@
+package com.example.querydsl.monitoring;
+
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hibernate.event.spi.LoadEventListener.IMMEDIATE_LOAD;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.monitoring.LazyLoadDetector.Listener;
+import com.example.querydsl.monitoring.LazyLoadDetector.Scope;
+import com.example.querydsl.repository.MemberJpaRepository;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.List;
+import javax.persistence.EntityManager;
+import org.hibernate.event.spi.LoadEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional
+@SpringBootTest
+class LazyLoadDetectorTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  LazyLoadDetector lazyLoadDetector;
+
+  @Autowired
+  MemberJpaRepository memberJpaRepository;
+
+  @BeforeEach
+  void before() {
+    for (int i = 0; i < 10; i++) {
+      Team team = new Team("team" + i);
+      em.persist(team);
+      em.persist(new Member("member" + i, i, team));
+      em.persist(new Member("other" + i, i, team));
+    }
+    em.flush();
+    em.clear();
+  }
+
+  @Test
+  void memberTeamIsBatchLoaded() {
+    try (Scope scope = lazyLoadDetector.open()) {
+      List<Member> members = memberJpaRepository.findAll_Querydsl();
+      members.forEach(member -> member.getTeam().getName());
+
+      assertThat(members).hasSize(20);
+      assertThat(scope.getStatementCount()).isEqualTo(2);
+      assertThat(scope.getLazyLoads()).containsEntry(Team.class.getName(), 1);
+      assertThat(scope.repeatedLazyLoads(2)).isEmpty();
+    }
+  }
+
+  @Test
+  void teamMembersAreBatchLoaded() {
+    try (Scope scope = lazyLoadDetector.open()) {
+      List<Team> teams = new JPAQueryFactory(em).selectFrom(team).fetch();
+      teams.forEach(team -> team.getMembers().size());
+
+      assertThat(teams).hasSize(10);
+      assertThat(scope.getStatementCount()).isEqualTo(2);
+      assertThat(scope.repeatedLazyLoads(2)).isEmpty();
+    }
+  }
+
+  @Test
+  void nestedScopeIsAddedToParent() {
+    try (Scope outer = lazyLoadDetector.open()) {
+      try (Scope inner = lazyLoadDetector.open()) {
+        memberJpaRepository.findAll_Querydsl();
+        assertThat(inner.getStatementCount()).isEqualTo(1);
+      }
+      assertThat(outer.getStatementCount()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void failedInnerLoadDoesNotShiftOuterCount() {
+    LazyLoadDetector detector = new LazyLoadDetector();
+    Listener before = detector.before();
+    Listener after = detector.after();
+    LoadEvent outer = mock(LoadEvent.class);
+    when(outer.getEntityClassName()).thenReturn(Team.class.getName());
+    LoadEvent failed = mock(LoadEvent.class);
+
+    try (Scope scope = detector.open()) {
+      before.onLoad(outer, IMMEDIATE_LOAD);
+      detector.inspect("select team");
+      before.onLoad(failed, IMMEDIATE_LOAD);  //예외로 끝나서 after 가 불리지 않음
+      after.onLoad(outer, IMMEDIATE_LOAD);
+
+      before.onLoad(outer, IMMEDIATE_LOAD);
+      detector.inspect("select team");
+      after.onLoad(outer, IMMEDIATE_LOAD);
+
+      assertThat(scope.getLazyLoads()).containsEntry(Team.class.getName(), 2);
+    }
+  }
+}
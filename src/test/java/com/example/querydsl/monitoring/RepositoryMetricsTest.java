@@ -0,0 +1,61 @@
+package com.example.querydsl.monitoring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberTeamColumns;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RepositoryMetricsTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final RepositoryMetrics metrics = new RepositoryMetrics(registry);
+
+  @Test
+  void recordsLatencyRowsAndShape() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamA");
+    condition.setAgeGoe(10);
+
+    List<String> result = metrics.record("memberRepository", "search", condition,
+        () -> List.of("member1", "member2"));
+
+    assertThat(result).hasSize(2);
+    Timer timer = registry.get("member.repository.query")
+        .tags("method", "search", "shape", "teamName,ageGoe", "countQuery", "false")
+        .timer();
+    assertThat(timer.count()).isEqualTo(1);
+    DistributionSummary rows = registry.get("member.repository.rows")
+        .tags("method", "search")
+        .summary();
+    assertThat(rows.totalAmount()).isEqualTo(2);
+  }
+
+  @Test
+  void marksCountQueryOnlyWhenExecuted() {
+    metrics.record("memberRepository", "searchPageComplex", new MemberSearchCondition(),
+        () -> metrics.countQuery(() -> 4L));
+
+    assertThat(registry.get("member.repository.query")
+        .tags("method", "searchPageComplex", "shape", RepositoryMetrics.NO_CONDITION,
+            "countQuery", "true")
+        .timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  void countsColumnarRows() {
+    metrics.record("memberRepository", "searchColumns", new MemberSearchCondition(),
+        () -> MemberTeamColumns.builder(2)
+            .add(1L, "member1", 10, 1L, "teamA")
+            .add(2L, "member2", 20, null, null)
+            .build());
+
+    assertThat(registry.get("member.repository.rows")
+        .tags("method", "searchColumns")
+        .summary().totalAmount()).isEqualTo(2);
+  }
+}
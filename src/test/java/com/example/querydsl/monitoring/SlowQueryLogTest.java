@@ -0,0 +1,94 @@
+package com.example.querydsl.monitoring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class SlowQueryLogTest {
+
+  private final DriverManagerDataSource h2 =
+      new DriverManagerDataSource("jdbc:h2:mem:slowQueryLog;DB_CLOSE_DELAY=-1", "sa", "");
+
+  // 로그 스레드를 띄우지 않고 버퍼에 쌓인 이벤트를 직접 꺼내본다
+  private SlowQueryLog slowQueryLog(Duration threshold, double sampleRate) {
+    SlowQueryLogProperties properties = new SlowQueryLogProperties();
+    properties.setEnabled(false);
+    properties.setSlowThreshold(threshold);
+    properties.setSampleRate(sampleRate);
+    return new SlowQueryLog(properties);
+  }
+
+  @Test
+  void recordsBindValuesAndRowCount() throws Exception {
+    SlowQueryLog log = slowQueryLog(Duration.ZERO, 0);
+    SlowQueryLoggingDataSource dataSource = new SlowQueryLoggingDataSource(h2, log);
+
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("create table if not exists t (id int, name varchar(10))");
+      statement.executeUpdate("delete from t");
+      statement.executeUpdate("insert into t values (1, 'a'), (2, 'b'), (3, 'c')");
+      while (log.poll() != null) {
+      }
+
+      try (PreparedStatement select = connection.prepareStatement("select * from t where id >= ?")) {
+        select.setInt(1, 2);
+        try (ResultSet resultSet = select.executeQuery()) {
+          while (resultSet.next()) {
+          }
+        }
+      }
+    }
+
+    SqlEvent event = log.poll();
+    assertThat(event.isSlow()).isTrue();
+    assertThat(event.getSql()).isEqualTo("select * from t where id >= ?");
+    assertThat(event.getParameters()).containsExactly(2);
+    assertThat(event.getRows()).isEqualTo(2);
+  }
+
+  @Test
+  void closingStatementFinishesOpenResultSet() throws Exception {
+    SlowQueryLog log = slowQueryLog(Duration.ZERO, 0);
+    SlowQueryLoggingDataSource dataSource = new SlowQueryLoggingDataSource(h2, log);
+
+    try (Connection connection = dataSource.getConnection()) {
+      PreparedStatement select = connection.prepareStatement("select x from system_range(1, ?)");
+      select.setLong(1, 3);
+      ResultSet resultSet = select.executeQuery();
+      while (resultSet.next()) {
+        assertThat(resultSet.getLong(1)).isPositive();
+      }
+      select.close();  //ResultSet 은 닫지 않음
+    }
+
+    SqlEvent event = log.poll();
+    assertThat(event.getSql()).isEqualTo("select x from system_range(1, ?)");
+    assertThat(event.getParameters()).containsExactly(3L);
+    assertThat(event.getRows()).isEqualTo(3);
+  }
+
+  @Test
+  void skipsFastStatementsWhenNotSampled() throws Exception {
+    SlowQueryLog log = slowQueryLog(Duration.ofMinutes(1), 0);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    log.bindTo(registry);
+    SlowQueryLoggingDataSource dataSource = new SlowQueryLoggingDataSource(h2, log);
+
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("select 1");
+    }
+
+    assertThat(log.poll()).isNull();
+    assertThat(registry.get("member.sql.log").tag("type", "slow").functionCounter().count())
+        .isZero();
+  }
+}
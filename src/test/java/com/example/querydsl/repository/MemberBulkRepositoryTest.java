@@ -0,0 +1,143 @@
+package com.example.querydsl.repository;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+import com.example.querydsl.entity.Member;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+chunk 마다 커밋되므로 이 테스트는 @Transactional 롤백을 쓰지 않고 직접 정리한다
+ */
+@SpringBootTest
+class MemberBulkRepositoryTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  MemberBulkRepository memberBulkRepository;
+
+  @Autowired
+  BulkMutationProperties properties;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  private TransactionTemplate tx;
+  private long originalChunkSize;
+
+  @BeforeEach
+  void before() {
+    tx = new TransactionTemplate(transactionManager);
+    originalChunkSize = properties.getChunkSize();
+    properties.setChunkSize(3);
+    tx.executeWithoutResult(status -> {
+      for (int i = 0; i < 10; i++) {
+        em.persist(new Member("bulk" + i, 10));
+      }
+    });
+  }
+
+  @AfterEach
+  void after() {
+    properties.setChunkSize(originalChunkSize);
+    tx.executeWithoutResult(status -> new JPAQueryFactory(em)
+        .delete(member)
+        .where(member.username.startsWith("bulk"))
+        .execute());
+  }
+
+  private List<Integer> ages() {
+    return tx.execute(status -> new JPAQueryFactory(em)
+        .select(member.age)
+        .from(member)
+        .where(member.username.startsWith("bulk"))
+        .fetch());
+  }
+
+  @Test
+  void updateInChunks() {
+    List<BulkProgress> reported = new ArrayList<>();
+
+    BulkProgress result = memberBulkRepository.update(member.username.startsWith("bulk"),
+        update -> update.set(member.age, member.age.add(1)), null, reported::add);
+
+    assertThat(result.isCompleted()).isTrue();
+    assertThat(result.getAffectedRows()).isEqualTo(10);
+    assertThat(reported).hasSizeGreaterThanOrEqualTo(4);
+    assertThat(ages()).containsOnly(11);
+  }
+
+  @Test
+  void resumeAfterFailure() {
+    AtomicInteger calls = new AtomicInteger();
+
+    BulkMutationException failure = catchThrowableOfType(
+        () -> memberBulkRepository.update(member.username.startsWith("bulk"), update -> {
+          if (calls.incrementAndGet() == 2) {
+            throw new IllegalStateException("chunk failed");
+          }
+          update.set(member.age, member.age.add(1));
+        }, null, progress -> {
+        }),
+        BulkMutationException.class);
+
+    assertThat(failure.getResumeAfterId()).isNotNull();
+    BulkProgress resumed = memberBulkRepository.update(member.username.startsWith("bulk"),
+        update -> update.set(member.age, member.age.add(1)), failure.getResumeAfterId(),
+        progress -> {
+        });
+
+    assertThat(resumed.isCompleted()).isTrue();
+    assertThat(ages()).containsOnly(11);
+  }
+
+  @Test
+  void rejectsPendingChangesInCallingTransaction() {
+    tx.executeWithoutResult(status -> {
+      Member pending = new JPAQueryFactory(em)
+          .selectFrom(member)
+          .where(member.username.eq("bulk0"))
+          .fetchOne();
+      pending.setAge(99);
+
+      assertThatThrownBy(() -> memberBulkRepository.update(member.username.startsWith("bulk"),
+          update -> update.set(member.age, member.age.add(1)), null, progress -> {
+          }))
+          .isInstanceOf(IllegalStateException.class);
+      status.setRollbackOnly();
+    });
+
+    assertThat(ages()).containsOnly(10);
+  }
+
+  @Test
+  void rejectsNonPositiveChunkSize() {
+    assertThatThrownBy(() -> properties.setChunkSize(0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void deleteInChunks() {
+    BulkProgress result = memberBulkRepository.delete(member.username.startsWith("bulk"), null,
+        progress -> {
+        });
+
+    assertThat(result.getAffectedRows()).isEqualTo(10);
+    assertThat(ages()).isEmpty();
+  }
+}
@@ -5,11 +5,16 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import com.example.querydsl.entity.Member;
 import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberTeamColumns;
 import com.example.querydsl.entity.MemberTeamDto;
 import com.example.querydsl.entity.Team;
+import com.example.querydsl.monitoring.RepositoryMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
 import java.util.List;
 import javax.persistence.EntityManager;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -24,6 +29,15 @@ class MemberJpaRepositoryTest {
 
   @Autowired MemberJpaRepository memberJpaRepository;
 
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @Autowired
+  RepositoryMetrics metrics;
+
+  @Autowired
+  UsernameGramIndex usernameGramIndex;
+
   @Test
   void basicTest() {
     Member member = new Member("member1", 10);
@@ -45,6 +59,25 @@ class MemberJpaRepositoryTest {
     assertThat(result22).containsExactly(member);
   }
 
+  @Test
+  void readModes() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    em.persist(new Member("member1", 10, teamA));
+    em.flush();
+    em.clear();
+
+    Member readOnly = memberJpaRepository.findByUsername_Querydsl("member1", ReadMode.READ_ONLY)
+        .get(0);
+    assertThat(em.unwrap(Session.class).isReadOnly(readOnly)).isTrue();
+    em.clear();
+
+    Member stateless = memberJpaRepository.findByUsername_Querydsl("member1", ReadMode.STATELESS)
+        .get(0);
+    assertThat(em.contains(stateless)).isFalse();
+    assertThat(stateless.getTeam().getName()).isEqualTo("teamA");
+  }
+
   @Test
   void searchByBuilder() {
 
@@ -105,4 +138,116 @@ class MemberJpaRepositoryTest {
         .containsExactly("member3", "member4");
   }
 
-}
\ No newline at end of file
+  @Test
+  void streamSearch() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    for (int i = 0; i < 10; i++) {
+      em.persist(new Member("member" + i, i, teamA));
+    }
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(5);
+
+    List<String> usernames = new ArrayList<>();
+    long count = memberJpaRepository
+        .streamSearch(condition, 2, 3, dto -> usernames.add(dto.getUsername()));
+
+    assertThat(count).isEqualTo(5);
+    assertThat(usernames).containsExactlyInAnyOrder("member5", "member6", "member7", "member8", "member9");
+  }
+
+  @Test
+  void searchColumns() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    for (int i = 0; i < 10; i++) {
+      em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : null));
+    }
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(5);
+
+    MemberTeamColumns columns = memberJpaRepository.searchColumns(condition, 2);
+
+    assertThat(columns.size()).isEqualTo(5);
+    List<MemberTeamDto> rows = new ArrayList<>();
+    columns.forEach(row -> rows.add(row.toDto()));
+    assertThat(rows).containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(condition));
+  }
+
+  @Test
+  void saveAll() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+
+    List<Member> members = new ArrayList<>();
+    for (int i = 0; i < 120; i++) {
+      members.add(new Member("member" + i, i, teamA));
+    }
+    memberJpaRepository.saveAll(members);
+
+    assertThat(members).allMatch(m -> m.getId() != null);
+    assertThat(em.contains(members.get(0))).isFalse();
+    assertThat(em.contains(members.get(119))).isFalse();
+    assertThat(em.contains(teamA)).isTrue();  //호출한 쪽 엔티티는 detach 되지 않는다
+    assertThat(memberJpaRepository.findAll()).hasSize(120);
+  }
+
+  @Test
+  void saveAllWithoutBatching() {
+    MemberJpaRepository unbatched = new MemberJpaRepository(em, 0, meterRegistry, metrics,
+        usernameGramIndex);
+    List<Member> members = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      members.add(new Member("member" + i, i));
+    }
+    unbatched.saveAll(members);
+
+    assertThat(members).allMatch(m -> m.getId() != null && !em.contains(m));
+  }
+
+  @Test
+  void searchTemplateIsReusedPerShape() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+
+    double hitsBefore = meterRegistry.counter("member.search.template.hits", "query", "search").count();
+
+    MemberSearchCondition first = new MemberSearchCondition();
+    first.setAgeGoe(15);
+    first.setAgeLoe(15);
+    MemberSearchCondition second = new MemberSearchCondition();
+    second.setAgeGoe(5);
+    second.setAgeLoe(25);
+
+    memberJpaRepository.search(first);
+    List<MemberTeamDto> result = memberJpaRepository.search(second);
+
+    assertThat(result).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+    assertThat(meterRegistry.counter("member.search.template.hits", "query", "search").count())
+        .isGreaterThan(hitsBefore);
+  }
+
+  @Test
+  void untemplatedSearchMatchesTemplated() {
+    Team teamA = new Team("teamA");
+    em.persist(teamA);
+    em.persist(new Member("member1", 10, teamA));
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 30));
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamA");
+    condition.setAgeGoe(15);
+
+    assertThat(memberJpaRepository.searchUntemplated(condition))
+        .usingFieldByFieldElementComparator()
+        .containsExactlyInAnyOrderElementsOf(memberJpaRepository.search(condition));
+    assertThat(memberJpaRepository.searchByBuilderUntemplated(condition))
+        .usingFieldByFieldElementComparator()
+        .containsExactlyInAnyOrderElementsOf(memberJpaRepository.searchByBuilder(condition));
+  }
+}
@@ -0,0 +1,215 @@
+package com.example.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.querydsl.cache.TableChangeTracker;
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberTeamDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+class MemberSearchCoalescerTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final TableChangeTracker tracker = new TableChangeTracker();
+  private final MemberSearchCoalescerProperties properties = new MemberSearchCoalescerProperties();
+  private final MemberSearchCoalescer coalescer =
+      new MemberSearchCoalescer(tracker, properties, registry);
+  private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+  @AfterEach
+  void after() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void concurrentEqualSearchesShareOneExecution() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger executed = new AtomicInteger();
+    Supplier<List<MemberTeamDto>> query = () -> {
+      executed.incrementAndGet();
+      await(release);
+      return rows("result");
+    };
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamA");
+    MemberSearchCondition blankUsername = new MemberSearchCondition();
+    blankUsername.setTeamName("teamA");
+    blankUsername.setUsername(" ");
+
+    List<CompletableFuture<List<MemberTeamDto>>> results = new ArrayList<>();
+    results.add(submit(condition, query));
+    waitUntil(() -> coalescer.inFlight() == 1);
+    for (int i = 0; i < 5; i++) {
+      results.add(submit(i % 2 == 0 ? condition : blankUsername, query));
+    }
+    waitUntil(() -> coalesced() == 5);
+    release.countDown();
+
+    for (CompletableFuture<List<MemberTeamDto>> result : results) {
+      assertThat(username(result)).isEqualTo("result");
+    }
+    assertThat(executed).hasValue(1);
+    assertThat(coalescer.inFlight()).isZero();
+  }
+
+  @Test
+  void unrelatedKeyIsNotBlocked() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    MemberSearchCondition teamA = new MemberSearchCondition();
+    teamA.setTeamName("teamA");
+    MemberSearchCondition teamB = new MemberSearchCondition();
+    teamB.setTeamName("teamB");
+
+    CompletableFuture<List<MemberTeamDto>> blocked = submit(teamA, () -> {
+      await(release);
+      return rows("A");
+    });
+    waitUntil(() -> coalescer.inFlight() == 1);
+
+    assertThat(username(submit(teamB, () -> rows("B")))).isEqualTo("B");
+    release.countDown();
+    assertThat(username(blocked)).isEqualTo("A");
+    assertThat(coalesced()).isZero();
+  }
+
+  @Test
+  void writeAfterLeaderStartsIsNotCoalesced() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    CompletableFuture<List<MemberTeamDto>> stale = submit(condition, () -> {
+      await(release);
+      return rows("before");
+    });
+    waitUntil(() -> coalescer.inFlight() == 1);
+
+    tracker.inspect("update member set age=? where member_id=?");
+    assertThat(username(submit(condition, () -> rows("after")))).isEqualTo("after");
+    release.countDown();
+    assertThat(username(stale)).isEqualTo("before");
+  }
+
+  @Test
+  void leaderFailurePropagatesToFollowers() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    MemberSearchCondition condition = new MemberSearchCondition();
+    Supplier<List<MemberTeamDto>> failing = () -> {
+      await(release);
+      throw new IllegalStateException("boom");
+    };
+
+    CompletableFuture<List<MemberTeamDto>> leader = submit(condition, failing);
+    waitUntil(() -> coalescer.inFlight() == 1);
+    CompletableFuture<List<MemberTeamDto>> follower = submit(condition, () -> rows("unused"));
+    waitUntil(() -> coalesced() == 1);
+    release.countDown();
+
+    assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(IllegalStateException.class);
+
+    //실패한 실행은 map 에서 빠지므로 다음 호출은 다시 실행
+    assertThat(coalescer.list(null, "search", condition, () -> rows("retry")).get(0)
+        .getUsername()).isEqualTo("retry");
+  }
+
+  @Test
+  void followersGetTheirOwnCopies() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    MemberSearchCondition condition = new MemberSearchCondition();
+    PageRequest pageable = PageRequest.of(0, 10);
+    Supplier<Page<MemberTeamDto>> query = () -> {
+      await(release);
+      return new PageImpl<>(rows("shared"), pageable, 42);
+    };
+
+    CompletableFuture<Page<MemberTeamDto>> leader = CompletableFuture.supplyAsync(
+        () -> coalescer.page(null, "searchPageSimple", condition, pageable, query), executor);
+    waitUntil(() -> coalescer.inFlight() == 1);
+    CompletableFuture<Page<MemberTeamDto>> follower = CompletableFuture.supplyAsync(
+        () -> coalescer.page(null, "searchPageSimple", condition, pageable, query), executor);
+    waitUntil(() -> registry.counter("member.search.coalesced", "method", "searchPageSimple")
+        .count() == 1);
+    release.countDown();
+
+    Page<MemberTeamDto> leaderPage = leader.get(5, TimeUnit.SECONDS);
+    Page<MemberTeamDto> followerPage = follower.get(5, TimeUnit.SECONDS);
+    leaderPage.getContent().get(0).setUsername("changed");
+
+    assertThat(followerPage.getTotalElements()).isEqualTo(42);
+    assertThat(followerPage.getContent().get(0)).isNotSameAs(leaderPage.getContent().get(0));
+    assertThat(followerPage.getContent().get(0).getUsername()).isEqualTo("shared");
+  }
+
+  @Test
+  void followerRunsItselfAfterTimeout() throws Exception {
+    properties.setTimeout(Duration.ofMillis(50));
+    CountDownLatch release = new CountDownLatch(1);
+    MemberSearchCondition condition = new MemberSearchCondition();
+
+    CompletableFuture<List<MemberTeamDto>> stuck = submit(condition, () -> {
+      await(release);
+      return rows("leader");
+    });
+    waitUntil(() -> coalescer.inFlight() == 1);
+
+    assertThat(username(submit(condition, () -> rows("follower")))).isEqualTo("follower");
+    assertThat(registry.counter("member.search.coalesced.timeout", "method", "search").count())
+        .isEqualTo(1);
+    release.countDown();
+    assertThat(username(stuck)).isEqualTo("leader");
+  }
+
+  private CompletableFuture<List<MemberTeamDto>> submit(MemberSearchCondition condition,
+      Supplier<List<MemberTeamDto>> query) {
+    return CompletableFuture.supplyAsync(
+        () -> coalescer.list(null, "search", condition, query), executor);
+  }
+
+  private static List<MemberTeamDto> rows(String username) {
+    return new ArrayList<>(List.of(new MemberTeamDto(1L, username, 10, 1L, "teamA")));
+  }
+
+  private static String username(CompletableFuture<List<MemberTeamDto>> result)
+      throws Exception {
+    return result.get(5, TimeUnit.SECONDS).get(0).getUsername();
+  }
+
+  private double coalesced() {
+    return registry.counter("member.search.coalesced", "method", "search").count();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void waitUntil(Supplier<Boolean> condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.get() && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    assertThat(condition.get()).isTrue();
+  }
+}
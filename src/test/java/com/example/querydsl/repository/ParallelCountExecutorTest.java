@@ -0,0 +1,153 @@
+package com.example.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.example.querydsl.cache.TableChangeTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.example.querydsl.repository.ParallelCountExecutor.ParallelCount;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class ParallelCountExecutorTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final ParallelCountExecutor executor = executor(1);
+
+  private ParallelCountExecutor executor(int poolSize) {
+    return executor(poolSize, 2, Duration.ofSeconds(2));
+  }
+
+  private ParallelCountExecutor executor(int poolSize, int maxConcurrent, Duration timeout) {
+    ParallelCountProperties properties = new ParallelCountProperties();
+    properties.setPoolSize(poolSize);
+    properties.setMaxConcurrent(maxConcurrent);
+    properties.setTimeout(timeout);
+    return new ParallelCountExecutor(properties, new TableChangeTracker(),
+        mock(PlatformTransactionManager.class), registry);
+  }
+
+  @AfterEach
+  void after() {
+    executor.destroy();
+  }
+
+  @Test
+  void countRunsOnPoolThread() {
+    LongSupplier count = executor.submit(null,
+        () -> Thread.currentThread().getName().startsWith("member-count-") ? 1 : 0);
+
+    assertThat(count).isNotNull();
+    assertThat(count.getAsLong()).isEqualTo(1);
+  }
+
+  @Test
+  void saturatedPoolFallsBackToSequential() throws InterruptedException {
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    LongSupplier busy = executor.submit(null, () -> {
+      running.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return 1;
+    });
+    running.await();
+
+    LongSupplier rejected = executor.submit(null, () -> 2);
+    release.countDown();
+
+    assertThat(rejected).isNull();
+    assertThat(busy.getAsLong()).isEqualTo(1);
+    assertThat(registry.counter("member.count.parallel", "result", "rejected").count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void concurrencyLimitFallsBackToSequential() throws InterruptedException {
+    ParallelCountExecutor limited = executor(4, 1, Duration.ofSeconds(2));
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      LongSupplier busy = limited.submit(null, () -> {
+        await(release);
+        return 1;
+      });
+
+      assertThat(limited.submit(null, () -> 2)).isNull();
+      release.countDown();
+      assertThat(busy.getAsLong()).isEqualTo(1);
+      assertThat(limited.submit(null, () -> 3).getAsLong()).isEqualTo(3);  //끝나면 허용량을 돌려받는다
+    } finally {
+      release.countDown();
+      limited.destroy();
+    }
+  }
+
+  @Test
+  void timeoutCountsOnCallerThread() {
+    ParallelCountExecutor slow = executor(1, 1, Duration.ofMillis(50));
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      LongSupplier count = slow.submit(null, () -> {
+        if (Thread.currentThread().getName().startsWith("member-count-")) {
+          await(release);
+          return 1;
+        }
+        return 2;
+      });
+
+      assertThat(count.getAsLong()).isEqualTo(2);
+      assertThat(registry.counter("member.count.parallel", "result", "timeout").count())
+          .isEqualTo(1);
+    } finally {
+      release.countDown();
+      slow.destroy();
+    }
+  }
+
+  @Test
+  void cancelledCountNeverRuns() throws InterruptedException {
+    ParallelCountProperties properties = new ParallelCountProperties();
+    properties.setPoolSize(1);
+    properties.setQueueCapacity(1);
+    ParallelCountExecutor queued = new ParallelCountExecutor(properties, new TableChangeTracker(),
+        mock(PlatformTransactionManager.class), registry);
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger executed = new AtomicInteger();
+    try {
+      LongSupplier busy = queued.submit(null, () -> {
+        running.countDown();
+        await(release);
+        return 1;
+      });
+      running.await();
+      ParallelCount skipped = queued.submit(null, executed::incrementAndGet);
+
+      skipped.cancel();
+      release.countDown();
+
+      assertThat(busy.getAsLong()).isEqualTo(1);
+      assertThat(queued.submit(null, () -> 3).getAsLong()).isEqualTo(3);
+      assertThat(executed).hasValue(0);
+    } finally {
+      release.countDown();
+      queued.destroy();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package com.example.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberSearchCondition.UsernameMatch;
+import com.example.querydsl.entity.MemberTeamDto;
+import com.example.querydsl.entity.Team;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional
+@SpringBootTest
+class UsernameGramIndexTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  MemberJpaRepository memberJpaRepository;
+
+  Member alphabet;
+
+  @BeforeEach
+  void before() {
+    Team teamA = new Team("teamA");
+    Team teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+    em.persist(new Member("alpha", 10, teamA));
+    alphabet = new Member("alphabet", 20, teamB);
+    em.persist(alphabet);
+    em.persist(new Member("beta", 30, teamA));
+    em.persist(new Member("gamma", 40, teamB));
+    em.flush();
+    em.clear();
+  }
+
+  @Test
+  void grams() {
+    assertThat(UsernameGramIndex.grams("alpha", false)).containsExactly("alp", "lph", "pha");
+    assertThat(UsernameGramIndex.grams("ab", true)).containsExactly("ab\u0001", "b\u0001\u0001");
+    assertThat(UsernameGramIndex.grams("ab", false)).isEmpty();
+  }
+
+  @Test
+  void prefix() {
+    assertThat(search("alp", UsernameMatch.PREFIX, null)).containsExactly("alpha", "alphabet");
+    assertThat(search("lph", UsernameMatch.PREFIX, null)).isEmpty();
+    assertThat(search("a%", UsernameMatch.PREFIX, null)).isEmpty();  //like 특수문자는 escape
+  }
+
+  @Test
+  void contains() {
+    assertThat(search("pha", UsernameMatch.CONTAINS, null)).containsExactly("alpha", "alphabet");
+    assertThat(search("bet", UsernameMatch.CONTAINS, null)).containsExactly("alphabet", "beta");
+    assertThat(search("ahp", UsernameMatch.CONTAINS, null)).isEmpty();
+    assertThat(search("phab", UsernameMatch.CONTAINS, null)).containsExactly("alphabet");
+  }
+
+  @Test
+  void containsShortTerm() {
+    assertThat(search("ta", UsernameMatch.CONTAINS, null)).containsExactly("beta");
+    assertThat(search("a", UsernameMatch.CONTAINS, null))
+        .containsExactly("alpha", "alphabet", "beta", "gamma");
+    assertThat(search("mm", UsernameMatch.CONTAINS, null)).containsExactly("gamma");
+  }
+
+  @Test
+  void composesWithTeamAndAge() {
+    MemberSearchCondition condition = condition("a", UsernameMatch.CONTAINS, "teamB");
+    condition.setAgeLoe(30);
+    assertThat(usernames(memberJpaRepository.searchByBuilder(condition)))
+        .containsExactly("alphabet");
+    assertThat(search("alp", UsernameMatch.PREFIX, "teamA")).containsExactly("alpha");
+  }
+
+  @Test
+  void followsEntityChanges() {
+    Member member = em.find(Member.class, alphabet.getId());
+    member.setUsername("omega");
+    em.persist(new Member("zeta", 50));
+    em.flush();
+
+    assertThat(search("bet", UsernameMatch.CONTAINS, null)).containsExactly("beta");
+    assertThat(search("meg", UsernameMatch.CONTAINS, null)).containsExactly("omega");
+    assertThat(search("eta", UsernameMatch.CONTAINS, null)).containsExactly("beta", "zeta");
+
+    em.remove(member);
+    em.flush();
+    assertThat(search("meg", UsernameMatch.CONTAINS, null)).isEmpty();
+  }
+
+  private List<String> search(String username, UsernameMatch match, String teamName) {
+    return usernames(memberJpaRepository.search(condition(username, match, teamName)));
+  }
+
+  private static MemberSearchCondition condition(String username, UsernameMatch match,
+      String teamName) {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setUsername(username);
+    condition.setUsernameMatch(match);
+    condition.setTeamName(teamName);
+    return condition;
+  }
+
+  private static List<String> usernames(List<MemberTeamDto> result) {
+    return result.stream()
+        .map(MemberTeamDto::getUsername)
+        .sorted()
+        .collect(Collectors.toList());
+  }
+}
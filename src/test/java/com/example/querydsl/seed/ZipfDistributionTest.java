@@ -0,0 +1,39 @@
+package com.example.querydsl.seed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+class ZipfDistributionTest {
+
+  @Test
+  void skewedTowardsFirstRanks() {
+    ZipfDistribution distribution = new ZipfDistribution(1000, 1.2);
+    SplittableRandom random = new SplittableRandom(1);
+
+    int[] counts = new int[1000];
+    for (int i = 0; i < 100_000; i++) {
+      counts[distribution.sample(random)]++;
+    }
+
+    assertThat(counts[0]).isGreaterThan(counts[1]);
+    assertThat(counts[1]).isGreaterThan(counts[10]);
+    assertThat(counts[0]).isGreaterThan(100_000 / 10);
+  }
+
+  @Test
+  void zeroExponentIsUniform() {
+    ZipfDistribution distribution = new ZipfDistribution(4, 0.0);
+    SplittableRandom random = new SplittableRandom(1);
+
+    int[] counts = new int[4];
+    for (int i = 0; i < 40_000; i++) {
+      counts[distribution.sample(random)]++;
+    }
+
+    for (int count : counts) {
+      assertThat(count).isBetween(9_000, 11_000);
+    }
+  }
+}
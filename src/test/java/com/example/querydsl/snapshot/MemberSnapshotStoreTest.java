@@ -0,0 +1,192 @@
+package com.example.querydsl.snapshot;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberTeamDto;
+import com.example.querydsl.entity.Team;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+실제 트랜잭션으로 커밋 / 롤백 / 벌크연산을 해보고 스냅샷 검색이 DB 와 같은 결과이거나 null(=DB 로 fallback)인지 확인
+ */
+@SpringBootTest(properties = "member.snapshot.enabled=true")
+class MemberSnapshotStoreTest {
+
+  private static final String TEAM_NAME = "snapshotA";
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  MemberSnapshotStore store;
+
+  private TransactionTemplate tx;
+  private Long teamId;
+
+  @BeforeEach
+  void before() throws InterruptedException {
+    tx = new TransactionTemplate(transactionManager);
+    teamId = tx.execute(status -> {
+      Team snapshotA = new Team(TEAM_NAME);
+      em.persist(snapshotA);
+      return snapshotA.getId();
+    });
+    awaitFresh();
+  }
+
+  @AfterEach
+  void after() throws InterruptedException {
+    tx.executeWithoutResult(status -> {
+      JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+      List<Long> teamIds = queryFactory.select(team.id).from(team)
+          .where(team.name.startsWith("snapshot")).fetch();
+      queryFactory.delete(member).where(member.team.id.in(teamIds)).execute();
+      queryFactory.delete(team).where(team.id.in(teamIds)).execute();
+    });
+    awaitFresh();
+  }
+
+  @Test
+  void committedChangesAreApplied() {
+    Long memberId = tx.execute(status -> {
+      Team snapshotA = em.find(Team.class, teamId);
+      Member member1 = new Member("member1", 10, snapshotA);
+      em.persist(member1);
+      em.persist(new Member("member2", 20, snapshotA));
+      return member1.getId();
+    });
+    assertThat(store.isFresh()).isTrue();
+    assertThat(usernames(store.search(condition())))
+        .containsExactlyInAnyOrder("member1", "member2");
+
+    tx.executeWithoutResult(status -> {
+      em.find(Member.class, memberId).setAge(11);
+      em.remove(new JPAQueryFactory(em).selectFrom(member)
+          .where(member.username.eq("member2"), member.team.id.eq(teamId)).fetchOne());
+    });
+    List<MemberTeamDto> result = store.search(condition());
+    assertThat(result).extracting(MemberTeamDto::getUsername, MemberTeamDto::getAge)
+        .containsExactly(tuple("member1", 11));
+  }
+
+  @Test
+  void rolledBackChangesAreDropped() {
+    tx.executeWithoutResult(status -> {
+      em.persist(new Member("member1", 10, em.find(Team.class, teamId)));
+      em.flush();
+      assertThat(usernames(store.search(condition()))).isEmpty();  //커밋 전에는 안 보인다
+      status.setRollbackOnly();
+    });
+
+    assertThat(store.isFresh()).isTrue();
+    assertThat(usernames(store.search(condition()))).isEmpty();
+  }
+
+  @Test
+  void bulkUpdateMakesStaleUntilReloaded() throws InterruptedException {
+    tx.executeWithoutResult(status ->
+        em.persist(new Member("member1", 10, em.find(Team.class, teamId))));
+
+    tx.executeWithoutResult(status -> new JPAQueryFactory(em)
+        .update(member)
+        .set(member.age, member.age.add(1))
+        .where(member.team.id.eq(teamId))
+        .execute());
+
+    //다시 읽기 전이면 null, 다 읽었으면 바뀐 값 => 바뀌기 전 값은 나오면 안 된다
+    List<MemberTeamDto> beforeReload = store.search(condition());
+    if (beforeReload != null) {
+      assertThat(beforeReload).extracting(MemberTeamDto::getAge).containsExactly(11);
+    }
+    awaitFresh();
+    assertThat(store.search(condition())).extracting(MemberTeamDto::getAge).containsExactly(11);
+  }
+
+  /*
+  벌크연산으로 다시 읽는 중에 커밋된 엔티티 변경도 다시 읽은 스냅샷에 남아야 한다 (타이밍이 매번 달라서 여러 번 반복)
+   */
+  @Test
+  void changesCommittedDuringReloadAreReplayed() throws InterruptedException {
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      tx.executeWithoutResult(status -> new JPAQueryFactory(em)
+          .update(member)
+          .set(member.age, member.age.add(1))
+          .where(member.team.id.eq(teamId))
+          .execute());
+      String username = "member" + i;
+      int age = i;
+      tx.executeWithoutResult(status ->
+          em.persist(new Member(username, age, em.find(Team.class, teamId))));
+      expected.add(username);
+    }
+
+    awaitFresh();
+    assertThat(usernames(store.search(condition()))).containsExactlyInAnyOrderElementsOf(expected);
+  }
+
+  /*
+  스냅샷이 모르는 팀(native insert)을 참조하는 회원이 커밋되면 다시 읽어서 맞춘다
+   */
+  @Test
+  void unknownTeamTriggersReload() throws InterruptedException {
+    long nativeTeamId = 900_000_000L + teamId;
+    tx.executeWithoutResult(status -> {
+      em.createNativeQuery("insert into team (id, name) values (?, ?)")
+          .setParameter(1, nativeTeamId)
+          .setParameter(2, "snapshotNative")
+          .executeUpdate();
+      em.persist(new Member("member1", 10, em.getReference(Team.class, nativeTeamId)));
+    });
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("snapshotNative");
+    List<MemberTeamDto> beforeReload = store.search(condition);
+    if (beforeReload != null) {
+      assertThat(usernames(beforeReload)).containsExactly("member1");
+    }
+    awaitFresh();
+    assertThat(store.search(condition)).extracting(MemberTeamDto::getUsername,
+        MemberTeamDto::getTeamName)
+        .containsExactly(tuple("member1", "snapshotNative"));
+  }
+
+  private static MemberSearchCondition condition() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName(TEAM_NAME);
+    return condition;
+  }
+
+  private static List<String> usernames(List<MemberTeamDto> result) {
+    assertThat(result).isNotNull();
+    return result.stream().map(MemberTeamDto::getUsername).collect(Collectors.toList());
+  }
+
+  private void awaitFresh() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!store.isFresh() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(store.isFresh()).isTrue();
+  }
+}
@@ -0,0 +1,111 @@
+package com.example.querydsl.snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.querydsl.entity.MemberSearchCondition;
+import com.example.querydsl.entity.MemberSearchCondition.UsernameMatch;
+import com.example.querydsl.entity.MemberTeamDto;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MemberSnapshotTest {
+
+  MemberSnapshot snapshot;
+
+  @BeforeEach
+  void before() {
+    snapshot = new MemberSnapshot(2);
+    snapshot.putTeam(1, "teamA");
+    snapshot.putTeam(2, "teamB");
+    snapshot.putMember(1, "member1", 10, 1L);
+    snapshot.putMember(2, "member2", 20, 1L);
+    snapshot.putMember(3, "member3", 30, 2L);
+    snapshot.putMember(4, "member4", 40, 2L);
+    snapshot.putMember(5, "member5", null, null);
+  }
+
+  @Test
+  void search() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeGoe(20);
+    condition.setAgeLoe(40);
+    condition.setTeamName("teamB");
+    assertThat(ids(condition)).containsExactly(3L, 4L);
+
+    List<MemberTeamDto> all = snapshot.search(new MemberSearchCondition());
+    assertThat(all).hasSize(5);
+    MemberTeamDto noTeam = all.get(4);
+    assertThat(noTeam.getAge()).isEqualTo(0);
+    assertThat(noTeam.getTeamId()).isNull();
+    assertThat(noTeam.getTeamName()).isNull();
+    assertThat(all.get(0).getTeamName()).isEqualTo("teamA");
+  }
+
+  @Test
+  void nullAgeNeverMatchesAgeCondition() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setAgeLoe(100);
+    assertThat(ids(condition)).containsExactly(1L, 2L, 3L, 4L);
+  }
+
+  @Test
+  void username() {
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setUsername("member2");
+    assertThat(ids(condition)).containsExactly(2L);
+
+    condition.setUsername("ember");
+    assertThat(ids(condition)).isEmpty();
+    condition.setUsernameMatch(UsernameMatch.CONTAINS);
+    assertThat(ids(condition)).containsExactly(1L, 2L, 3L, 4L, 5L);
+
+    condition.setUsername("member");
+    condition.setUsernameMatch(UsernameMatch.PREFIX);
+    condition.setTeamName("teamA");
+    assertThat(ids(condition)).containsExactly(1L, 2L);
+  }
+
+  @Test
+  void changes() {
+    snapshot.putMember(2, "member2", 20, 2L);
+    snapshot.putTeam(2, "teamC");
+    snapshot.removeMember(3);
+    snapshot.removeMember(3);
+
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setTeamName("teamC");
+    assertThat(ids(condition)).containsExactly(2L, 4L);
+    assertThat(snapshot.size()).isEqualTo(4);
+    assertThat(snapshot.deletedRows()).isEqualTo(1);
+
+    snapshot.putMember(3, "member3", 31, 1L);
+    assertThat(snapshot.size()).isEqualTo(5);
+    assertThat(snapshot.deletedRows()).isEqualTo(0);
+  }
+
+  @Test
+  void unknownTeamIsRejected() {
+    assertThat(snapshot.putMember(6, "member6", 60, 99L)).isFalse();
+    assertThat(snapshot.size()).isEqualTo(5);
+  }
+
+  @Test
+  void grows() {
+    for (long id = 100; id < 10_100; id++) {
+      snapshot.putMember(id, "m" + (id % 10), (int) (id % 50), 1L);
+    }
+    MemberSearchCondition condition = new MemberSearchCondition();
+    condition.setUsername("m3");
+    condition.setAgeGoe(40);
+    assertThat(ids(condition)).hasSize(200)
+        .allMatch(id -> id % 10 == 3 && id % 50 >= 40);
+  }
+
+  private List<Long> ids(MemberSearchCondition condition) {
+    return snapshot.search(condition).stream()
+        .map(MemberTeamDto::getMemberId)
+        .collect(Collectors.toList());
+  }
+}
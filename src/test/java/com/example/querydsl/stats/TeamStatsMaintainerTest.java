@@ -0,0 +1,159 @@
+package com.example.querydsl.stats;
+
+import static com.example.querydsl.entity.QMember.member;
+import static com.example.querydsl.entity.QTeam.team;
+import static com.example.querydsl.entity.QTeamAgeStats.teamAgeStats;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.entity.TeamStatsDto;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+커밋된 변경이 team_age_stats 에 반영되고 조회가 롤업 테이블에서 나오는지 (TeamStatsRepositoryTest 는 트랜잭션 안이라 member group by 로 응답)
+ */
+@SpringBootTest
+class TeamStatsMaintainerTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  TeamStatsMaintainer maintainer;
+
+  @Autowired
+  TeamStatsRepository teamStatsRepository;
+
+  @Autowired
+  MeterRegistry registry;
+
+  private TransactionTemplate tx;
+
+  @BeforeEach
+  void before() throws InterruptedException {
+    tx = new TransactionTemplate(transactionManager);
+    awaitFresh();
+  }
+
+  @AfterEach
+  void after() throws InterruptedException {
+    tx.executeWithoutResult(status -> {
+      JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+      List<Team> teams = queryFactory.selectFrom(team).where(team.name.startsWith("stats")).fetch();
+      if (!teams.isEmpty()) {
+        queryFactory.delete(member).where(member.team.in(teams)).execute();
+        teams.forEach(em::remove);
+      }
+    });
+    awaitFresh();
+  }
+
+  @Test
+  void committedChangesAreServedFromRollup() throws InterruptedException {
+    tx.executeWithoutResult(status -> {
+      Team statsA = new Team("statsA");
+      em.persist(statsA);
+      em.persist(new Member("member1", 10, statsA));
+      em.persist(new Member("member2", 20, statsA));
+      em.persist(new Member("member3", null, statsA));
+    });
+    //age 가 null 인 회원을 다른 트랜잭션에서 한 번 더 => 같은 행에 더해진다
+    tx.executeWithoutResult(status -> em.persist(new Member("member4", null,
+        new JPAQueryFactory(em).selectFrom(team).where(team.name.eq("statsA")).fetchOne())));
+
+    assertThat(maintainer.isFresh()).isTrue();
+    double rollupReads = registry.counter("team.stats.read", "source", "rollup").count();
+
+    assertThat(stats())
+        .extracting(TeamStatsDto::getTeamName, TeamStatsDto::getMemberCount,
+            TeamStatsDto::getAgeSum, TeamStatsDto::getAgeAvg, TeamStatsDto::getAgeMax,
+            TeamStatsDto::getAgeMin)
+        .containsExactly(tuple("statsA", 4L, 30L, 15.0, 20, 10));
+    assertThat(registry.counter("team.stats.read", "source", "rollup").count())
+        .isGreaterThan(rollupReads);
+    assertThat(nullAgeRows()).isEqualTo(1);
+  }
+
+  @Test
+  void rollbackLeavesStatsUnchanged() {
+    tx.executeWithoutResult(status -> em.persist(new Team("statsB")));
+    tx.executeWithoutResult(status -> {
+      Team statsB = new JPAQueryFactory(em).selectFrom(team).where(team.name.eq("statsB"))
+          .fetchOne();
+      em.persist(new Member("member1", 10, statsB));
+      em.flush();
+      status.setRollbackOnly();
+    });
+
+    assertThat(stats()).isEmpty();
+  }
+
+  @Test
+  void rebuiltAsynchronouslyAfterBulkUpdate() throws InterruptedException {
+    tx.executeWithoutResult(status -> {
+      Team statsC = new Team("statsC");
+      em.persist(statsC);
+      em.persist(new Member("statsC1", 10, statsC));
+      em.persist(new Member("statsC2", 20, statsC));
+    });
+
+    tx.executeWithoutResult(status -> new JPAQueryFactory(em)
+        .update(member)
+        .set(member.age, member.age.add(1))
+        .where(member.username.in("statsC1", "statsC2"))
+        .execute());
+
+    //다시 만들어지기 전이든 후든 값은 같다
+    assertThat(stats())
+        .extracting(TeamStatsDto::getAgeSum, TeamStatsDto::getAgeMax)
+        .containsExactly(tuple(32L, 21));
+    awaitFresh();
+    assertThat(stats())
+        .extracting(TeamStatsDto::getAgeSum, TeamStatsDto::getAgeMax)
+        .containsExactly(tuple(32L, 21));
+  }
+
+  private List<TeamStatsDto> stats() {
+    return teamStatsRepository.findAll().stream()
+        .filter(dto -> dto.getTeamName().startsWith("stats"))
+        .collect(Collectors.toList());
+  }
+
+  private long nullAgeRows() {
+    return tx.execute(status -> new JPAQueryFactory(em)
+        .selectFrom(teamAgeStats)
+        .join(team).on(team.id.eq(teamAgeStats.teamId))
+        .where(team.name.eq("statsA"), teamAgeStats.age.isNull())
+        .fetchCount());
+  }
+
+  private void awaitFresh() throws InterruptedException {
+    await(maintainer::isFresh);
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(condition.getAsBoolean()).isTrue();
+  }
+}
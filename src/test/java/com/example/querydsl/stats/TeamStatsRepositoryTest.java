@@ -0,0 +1,91 @@
+package com.example.querydsl.stats;
+
+import static com.example.querydsl.entity.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.example.querydsl.entity.Member;
+import com.example.querydsl.entity.Team;
+import com.example.querydsl.entity.TeamStatsDto;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional
+@SpringBootTest
+class TeamStatsRepositoryTest {
+
+  @Autowired
+  EntityManager em;
+
+  @Autowired
+  TeamStatsRepository teamStatsRepository;
+
+  private Team teamA;
+  private Team teamB;
+  private Member member1;
+  private Member member4;
+
+  @BeforeEach
+  void before() {
+    teamA = new Team("teamA");
+    teamB = new Team("teamB");
+    em.persist(teamA);
+    em.persist(teamB);
+
+    member1 = new Member("member1", 10, teamA);
+    member4 = new Member("member4", 40, teamB);
+    em.persist(member1);
+    em.persist(new Member("member2", 20, teamA));
+    em.persist(new Member("member3", 30, teamB));
+    em.persist(member4);
+  }
+
+  @Test
+  void sameAsGroupByOverMembers() {
+    assertThat(teamStatsRepository.findAll())
+        .extracting(TeamStatsDto::getTeamName, TeamStatsDto::getMemberCount,
+            TeamStatsDto::getAgeSum, TeamStatsDto::getAgeAvg, TeamStatsDto::getAgeMax,
+            TeamStatsDto::getAgeMin)
+        .containsExactly(
+            tuple("teamA", 2L, 30L, 15.0, 20, 10),
+            tuple("teamB", 2L, 70L, 35.0, 40, 30));
+  }
+
+  @Test
+  void followsEntityChanges() {
+    teamStatsRepository.findAll();
+
+    member1.setTeam(teamB);
+    member4.setAge(50);
+    em.persist(new Member("member5", 5, teamA));
+    em.remove(em.find(Member.class, member1.getId()));
+
+    assertThat(teamStatsRepository.findAll())
+        .extracting(TeamStatsDto::getTeamName, TeamStatsDto::getMemberCount,
+            TeamStatsDto::getAgeSum, TeamStatsDto::getAgeMax, TeamStatsDto::getAgeMin)
+        .containsExactly(
+            tuple("teamA", 2L, 25L, 20, 5),
+            tuple("teamB", 2L, 80L, 50, 30));
+  }
+
+  @Test
+  void rebuiltAfterBulkUpdate() {
+    teamStatsRepository.findAll();
+
+    new JPAQueryFactory(em)
+        .update(member)
+        .set(member.age, member.age.add(1))
+        .execute();
+
+    assertThat(teamStatsRepository.findAll())
+        .extracting(TeamStatsDto::getTeamName, TeamStatsDto::getAgeSum, TeamStatsDto::getAgeMax)
+        .containsExactly(
+            tuple("teamA", 32L, 21),
+            tuple("teamB", 72L, 41));
+  }
+}